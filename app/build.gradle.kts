@@ -29,6 +29,10 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        // Pure-Java classes under JVM unit tests still call android.util.Log
+        unitTests.isReturnDefaultValues = true
+    }
 
 
 }
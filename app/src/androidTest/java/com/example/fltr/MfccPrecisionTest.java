@@ -0,0 +1,90 @@
+package com.example.fltr;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Accuracy report for the float32 MFCC mode against the default double-precision path.
+ * Runs both modes over every WAV in the app's external "wav_corpus" folder
+ * (adb push recordings to /sdcard/Android/data/com.example.fltr/files/wav_corpus/) and
+ * logs the max/mean coefficient deviation and any change in the predicted label.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MfccPrecisionTest {
+    private static final String TAG = "MfccPrecisionTest";
+
+    @After
+    public void restoreDefaults() {
+        CustomMFCC.setFloatPrecisionEnabled(false);
+    }
+
+    @Test
+    public void floatMode_matchesDoubleModeOverCorpus() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File corpusDir = context.getExternalFilesDir("wav_corpus");
+        File[] wavs = (corpusDir != null) ? corpusDir.listFiles((dir, name) -> name.endsWith(".wav")) : null;
+        assumeTrue("No WAV files in " + corpusDir, wavs != null && wavs.length > 0);
+        Arrays.sort(wavs);
+
+        CustomMFCC.InferenceHelper inferenceHelper = new CustomMFCC.InferenceHelper(context);
+        CustomMFCC.MfccWorkspace workspace = new CustomMFCC.MfccWorkspace();
+        float[] doubleMfcc = new float[CustomMFCC.OUTPUT_SIZE];
+        float[] floatMfcc = new float[CustomMFCC.OUTPUT_SIZE];
+
+        double maxDeviation = 0;
+        double deviationSum = 0;
+        long coefficientCount = 0;
+        int labelChanges = 0;
+
+        for (File wav : wavs) {
+            short[] pcm = WavReader.read(wav).samples;
+
+            CustomMFCC.setFloatPrecisionEnabled(false);
+            CustomMFCC.extractMFCCs(pcm, pcm.length, workspace, doubleMfcc);
+            CustomMFCC.setFloatPrecisionEnabled(true);
+            CustomMFCC.extractMFCCs(pcm, pcm.length, workspace, floatMfcc);
+
+            double fileMax = 0;
+            for (int i = 0; i < doubleMfcc.length; i++) {
+                double deviation = Math.abs(doubleMfcc[i] - floatMfcc[i]);
+                fileMax = Math.max(fileMax, deviation);
+                deviationSum += deviation;
+            }
+            coefficientCount += doubleMfcc.length;
+            maxDeviation = Math.max(maxDeviation, fileMax);
+
+            String doubleLabel = inferenceHelper.runInference(toMatrix(doubleMfcc)).label;
+            String floatLabel = inferenceHelper.runInference(toMatrix(floatMfcc)).label;
+            if (!doubleLabel.equals(floatLabel)) labelChanges++;
+
+            Log.i(TAG, wav.getName() + ": maxDev=" + fileMax + " double=" + doubleLabel + " float=" + floatLabel);
+        }
+
+        double meanDeviation = deviationSum / coefficientCount;
+        Log.i(TAG, "Files: " + wavs.length + " maxDev=" + maxDeviation + " meanDev=" + meanDeviation
+                + " labelChanges=" + labelChanges);
+
+        assertEquals("Predicted label changed in float mode", 0, labelChanges);
+    }
+
+    private static float[][] toMatrix(float[] flat) {
+        float[][] matrix = new float[CustomMFCC.TARGET_NUM_FRAMES][CustomMFCC.NUM_MFCC];
+        for (int i = 0; i < matrix.length; i++) {
+            System.arraycopy(flat, i * CustomMFCC.NUM_MFCC, matrix[i], 0, CustomMFCC.NUM_MFCC);
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.fltr;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Speedup table for ParallelMfccExtractor on the 5 s maximum utterance at 1/2/4/8 workers.
+ * Results go to logcat under "ParallelMfccBenchmark".
+ */
+@RunWith(AndroidJUnit4.class)
+public class ParallelMfccBenchmark {
+    private static final String TAG = "ParallelMfccBenchmark";
+    private static final int WARMUP_RUNS = 5;
+    private static final int TIMED_RUNS = 20;
+
+    @Test
+    public void speedupAtOneTwoFourEightWorkers() {
+        short[] pcm = syntheticUtterance(CustomMFCC.MAX_RECORD_SAMPLES);
+        float[] expected = new float[CustomMFCC.OUTPUT_SIZE];
+        CustomMFCC.extractMFCCs(pcm, pcm.length, new CustomMFCC.MfccWorkspace(), expected);
+
+        Log.i(TAG, "Big cores: " + InterpreterFactory.bigCoreCount()
+                + ", available processors: " + Runtime.getRuntime().availableProcessors());
+        Log.i(TAG, "workers | ms/utterance | speedup");
+
+        double serialMs = 0;
+        for (int workers : new int[]{1, 2, 4, 8}) {
+            ParallelMfccExtractor extractor = new ParallelMfccExtractor(workers);
+            float[] out = new float[CustomMFCC.OUTPUT_SIZE];
+            try {
+                for (int i = 0; i < WARMUP_RUNS; i++) extractor.extract(pcm, pcm.length, out);
+
+                long start = System.nanoTime();
+                for (int i = 0; i < TIMED_RUNS; i++) extractor.extract(pcm, pcm.length, out);
+                double ms = (System.nanoTime() - start) / 1e6 / TIMED_RUNS;
+
+                if (workers == 1) serialMs = ms;
+                Log.i(TAG, String.format("%7d | %12.2f | %6.2fx", workers, ms, serialMs / ms));
+            } finally {
+                extractor.shutdown();
+            }
+
+            assertArrayEquals(expected, out, 0f);
+        }
+    }
+
+    private static short[] syntheticUtterance(int length) {
+        Random random = new Random(7);
+        short[] pcm = new short[length];
+        for (int i = 0; i < length; i++) {
+            pcm[i] = (short) (8000 * Math.sin(i * 0.03) * Math.sin(i * 0.0005) + random.nextGaussian() * 300);
+        }
+        return pcm;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.fltr;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.tensorflow.lite.support.common.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares every bundled ModelVariant against the FLOAT32 model over the recorded WAVs in the
+ * app's external "wav_corpus" folder. Logs model size, PSS growth after loading, mean
+ * inference latency and top-1 agreement with FLOAT32 under "QuantizedModelEvaluation".
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuantizedModelEvaluation {
+    private static final String TAG = "QuantizedModelEvaluation";
+
+    @Test
+    public void reportLatencySizeMemoryAndAgreement() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File corpusDir = context.getExternalFilesDir("wav_corpus");
+        File[] wavs = (corpusDir != null) ? corpusDir.listFiles((dir, name) -> name.endsWith(".wav")) : null;
+        assumeTrue("No WAV files in " + corpusDir, wavs != null && wavs.length > 0);
+        Arrays.sort(wavs);
+
+        // Features are the same for every variant, so extract them once
+        CustomMFCC.MfccWorkspace workspace = new CustomMFCC.MfccWorkspace();
+        List<float[]> features = new ArrayList<>();
+        for (File wav : wavs) {
+            short[] pcm = WavReader.read(wav).samples;
+            float[] mfcc = new float[CustomMFCC.OUTPUT_SIZE];
+            CustomMFCC.extractMFCCs(pcm, pcm.length, workspace, mfcc);
+            features.add(mfcc);
+        }
+
+        int[] reference = null;
+        Log.i(TAG, "variant | size KB | PSS delta KB | mean ms | top-1 agreement");
+
+        for (ModelVariant variant : ModelVariant.values()) {
+            long sizeBytes;
+            try {
+                sizeBytes = FileUtil.loadMappedFile(context, variant.assetName).capacity();
+            } catch (IOException e) {
+                Log.i(TAG, variant + " not bundled, skipping");
+                continue;
+            }
+
+            Runtime.getRuntime().gc();
+            long pssBefore = Debug.getPss();
+            try (CustomMFCC.InferenceHelper helper = new CustomMFCC.InferenceHelper(context, variant)) {
+                long pssDelta = Debug.getPss() - pssBefore;
+
+                int[] predictions = new int[features.size()];
+                long totalNanos = 0;
+                for (int i = 0; i < features.size(); i++) {
+                    long start = System.nanoTime();
+                    predictions[i] = helper.runInference(features.get(i)).bestIndex;
+                    totalNanos += System.nanoTime() - start;
+                }
+                if (variant == ModelVariant.FLOAT32) reference = predictions;
+
+                int agree = 0;
+                for (int i = 0; reference != null && i < predictions.length; i++) {
+                    if (predictions[i] == reference[i]) agree++;
+                }
+
+                Log.i(TAG, String.format("%s | %d | %d | %.2f | %.1f%%", variant, sizeBytes / 1024, pssDelta,
+                        totalNanos / 1e6 / features.size(), 100.0 * agree / predictions.length));
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.fltr;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Regression check over archived utterances: every record in the app's sessions folder
+ * is replayed through the streaming extractor and the current model, without the
+ * microphone. Logs MFCC drift against the stored tensor, predictions that changed, and
+ * replayed vs recorded inference time under "SessionArchiveReplay".
+ */
+@RunWith(AndroidJUnit4.class)
+public class SessionArchiveReplay {
+    private static final String TAG = "SessionArchiveReplay";
+
+    @Test
+    public void replayArchivedUtterances() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File dir = SessionArchive.sessionsDirectory(context);
+        List<String> sessions = SessionArchive.listSessions(dir);
+        assumeTrue("No archived sessions in " + dir, sessions != null && !sessions.isEmpty());
+
+        CustomMFCC.InferenceHelper helper = ModelRuntime.get(context).getHelper();
+        assumeTrue("Model failed to load", helper != null);
+
+        Log.i(TAG, "session | record | stored label | replayed label | max MFCC diff | stored ms | replayed ms");
+        int total = 0;
+        int changed = 0;
+        float worstDiff = 0f;
+        for (String name : sessions) {
+            SessionArchive archive = new SessionArchive(dir, name);
+            for (int i = 0; i < archive.size(); i++) {
+                SessionArchive.ReplayResult replay = archive.replay(i, helper);
+                total++;
+                if (!replay.labelMatches) changed++;
+                worstDiff = Math.max(worstDiff, replay.maxMfccDiff);
+                Log.i(TAG, String.format("%s | %d | %s | %s | %.6f | %.1f | %.1f", name, i,
+                        replay.record.label, replay.inferenceResult.label, replay.maxMfccDiff,
+                        replay.record.inferenceMs, replay.inferenceResult.processingTimeSec * 1000f));
+            }
+            archive.close();
+        }
+        Log.i(TAG, String.format("%d utterances replayed: %d predictions changed, worst MFCC diff %.6f",
+                total, changed, worstDiff));
+    }
+}
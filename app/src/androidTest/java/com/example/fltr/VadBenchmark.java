@@ -0,0 +1,130 @@
+package com.example.fltr;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Cost and false-trigger report for VoiceActivityDetector against the old per-chunk peak
+ * threshold. Noise clips come from the app's external "noise_corpus" folder
+ * (adb push to /sdcard/Android/data/com.example.fltr/files/noise_corpus/); every trigger
+ * on them is a false one. Results go to logcat under "VadBenchmark".
+ */
+@RunWith(AndroidJUnit4.class)
+public class VadBenchmark {
+    private static final String TAG = "VadBenchmark";
+    private static final int CHUNK = 1024;
+    private static final int SAMPLE_RATE = 44100;
+    private static final int PEAK_THRESHOLD = 5000; // AudioEngine's uncalibrated default
+    private static final float PEAK_TO_RMS = 3f;
+    private static final int HANGOVER = 20;
+
+    @Test
+    public void cpuCostPerSecondOfAudio() {
+        short[] audio = syntheticUtterance(SAMPLE_RATE * 60);
+        VoiceActivityDetector vad = new VoiceActivityDetector(CHUNK, SAMPLE_RATE, HANGOVER);
+        vad.setEnergyThreshold(PEAK_THRESHOLD / PEAK_TO_RMS);
+        short[] chunk = new short[CHUNK];
+
+        // Warm-up pass, then timed
+        for (int pass = 0; pass < 2; pass++) {
+            vad.reset();
+            long start = System.nanoTime();
+            for (int offset = 0; offset + CHUNK <= audio.length; offset += CHUNK) {
+                System.arraycopy(audio, offset, chunk, 0, CHUNK);
+                vad.process(chunk, CHUNK);
+            }
+            double msPerSecond = (System.nanoTime() - start) / 1e6 / 60;
+            if (pass == 1) {
+                Log.i(TAG, String.format("VAD cost: %.3f ms CPU per second of audio (%.3f%% of real time)",
+                        msPerSecond, msPerSecond / 10));
+            }
+        }
+    }
+
+    @Test
+    public void falseTriggersOnNoiseClips() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File corpusDir = context.getExternalFilesDir("noise_corpus");
+        File[] clips = (corpusDir != null) ? corpusDir.listFiles((dir, name) -> name.endsWith(".wav")) : null;
+        assumeTrue("No WAV files in " + corpusDir, clips != null && clips.length > 0);
+        Arrays.sort(clips);
+
+        Log.i(TAG, "clip | seconds | peak triggers | VAD triggers");
+        int totalPeak = 0;
+        int totalVad = 0;
+        double totalSeconds = 0;
+        for (File clip : clips) {
+            short[] samples = WavReader.read(clip).samples;
+            int peakTriggers = countPeakTriggers(samples);
+            int vadTriggers = countVadTriggers(samples);
+            double seconds = (double) samples.length / SAMPLE_RATE;
+
+            totalPeak += peakTriggers;
+            totalVad += vadTriggers;
+            totalSeconds += seconds;
+            Log.i(TAG, String.format("%s | %.1f | %d | %d", clip.getName(), seconds, peakTriggers, vadTriggers));
+        }
+        Log.i(TAG, String.format("Total over %.1f s: peak %d (%.2f/min), VAD %d (%.2f/min)",
+                totalSeconds, totalPeak, totalPeak * 60 / totalSeconds, totalVad, totalVad * 60 / totalSeconds));
+    }
+
+    // Old rule: any chunk peak over the threshold starts a recording, which then runs until
+    // HANGOVER quiet chunks in a row
+    private static int countPeakTriggers(short[] samples) {
+        int triggers = 0;
+        boolean recording = false;
+        int quiet = 0;
+        for (int offset = 0; offset + CHUNK <= samples.length; offset += CHUNK) {
+            int max = 0;
+            for (int i = offset; i < offset + CHUNK; i++) max = Math.max(max, Math.abs(samples[i]));
+            boolean loud = max >= PEAK_THRESHOLD;
+
+            if (!recording && loud) {
+                recording = true;
+                triggers++;
+                quiet = 0;
+            } else if (recording) {
+                quiet = loud ? 0 : quiet + 1;
+                if (quiet > HANGOVER) recording = false;
+            }
+        }
+        return triggers;
+    }
+
+    private static int countVadTriggers(short[] samples) {
+        VoiceActivityDetector vad = new VoiceActivityDetector(CHUNK, SAMPLE_RATE, HANGOVER);
+        vad.setEnergyThreshold(PEAK_THRESHOLD / PEAK_TO_RMS);
+        short[] chunk = new short[CHUNK];
+
+        int triggers = 0;
+        boolean wasActive = false;
+        for (int offset = 0; offset + CHUNK <= samples.length; offset += CHUNK) {
+            System.arraycopy(samples, offset, chunk, 0, CHUNK);
+            boolean active = vad.process(chunk, CHUNK);
+            if (active && !wasActive) triggers++;
+            wasActive = active;
+        }
+        return triggers;
+    }
+
+    private static short[] syntheticUtterance(int length) {
+        Random random = new Random(7);
+        short[] pcm = new short[length];
+        for (int i = 0; i < length; i++) {
+            pcm[i] = (short) (8000 * Math.sin(i * 0.03) * Math.sin(i * 0.0005) + random.nextGaussian() * 300);
+        }
+        return pcm;
+    }
+}
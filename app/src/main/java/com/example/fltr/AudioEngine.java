@@ -4,10 +4,11 @@ import android.annotation.SuppressLint;
 import android.media.AudioFormat;
 import android.media.AudioRecord;
 import android.media.MediaRecorder;
+import android.os.Process;
 import android.util.Log;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class AudioEngine {
 
@@ -18,17 +19,80 @@ public class AudioEngine {
     private static final int DEFAULT_SILENCE_THRESHOLD = 5000;
     private static final int TRIM_THRESHOLD = 3000;
     private static final int SILENCE_DURATION = 20; // ~20 buffers ≈ 0.4 sec
+    // Thresholds are calibrated on chunk peaks; the VAD works on RMS, roughly peak / 3 for speech
+    private static final float PEAK_TO_RMS = 3f;
+    private static final long READ_TIMEOUT_NS = 100_000_000L; // recheck the stop conditions every 100 ms
+
+    // Audio kept from before the trigger so soft onsets aren't cut off
+    public static final int MIN_PRE_ROLL_MS = 100;
+    public static final int MAX_PRE_ROLL_MS = 300;
+    public static final int DEFAULT_PRE_ROLL_MS = 200;
+    private static final int MAX_PRE_ROLL_SAMPLES = SAMPLE_RATE * MAX_PRE_ROLL_MS / 1000;
 
     private int adaptiveThreshold = -1; // -1 = not calibrated
 
+    // Follows the background level on non-speech chunks, so calibrating is optional
+    private final NoiseFloorTracker noiseFloor = new NoiseFloorTracker(DEFAULT_SILENCE_THRESHOLD / PEAK_TO_RMS);
+
     private boolean isRecording;
     private RecordingCallback callback;
     private CalibrationCallback calibrationCallback;
 
+    // Last finished utterance, raw; the normalized bytes for saving are built on first request
+    private short[] lastRecording;
+    private int lastRecordingLength;
+    private float lastGain = 1f;
     private byte[] lastPcmBytes;
 
+    // Reused across utterances so its buffers are only allocated once
+    private final CustomMFCC.StreamingExtractor extractor = new CustomMFCC.StreamingExtractor();
+
+    // Optional early exit once the prediction on the partial utterance settles
+    private volatile SpeculativeClassifier speculativeClassifier;
+
+    // Capture thread -> processing thread, with room for a whole maximum-length recording
+    private final ShortRingBuffer ring = new ShortRingBuffer(CustomMFCC.MAX_RECORD_SAMPLES);
+    private final short[] captureBuffer = new short[BUFFER_SIZE];
+    private final short[] processChunk = new short[BUFFER_SIZE];
+    // Two capture targets used in turn, so the last utterance survives while the next one records
+    private final short[][] recordBuffers = {
+            new short[CustomMFCC.MAX_RECORD_SAMPLES + MAX_PRE_ROLL_SAMPLES],
+            new short[CustomMFCC.MAX_RECORD_SAMPLES + MAX_PRE_ROLL_SAMPLES]
+    };
+    private volatile boolean capturing;
+
+    // Speech/non-speech decision per processed chunk, with hangover of SILENCE_DURATION chunks
+    private final VoiceActivityDetector vad = new VoiceActivityDetector(BUFFER_SIZE, SAMPLE_RATE, SILENCE_DURATION);
+    // The session thread's own detector for idle audio, so talk near an idle app doesn't raise the floor
+    private final VoiceActivityDetector idleVad = new VoiceActivityDetector(BUFFER_SIZE, SAMPLE_RATE, SILENCE_DURATION);
+    private Thread captureThread;
+
+    // Long-lived AudioRecord kept open while a screen is in the foreground; utterances
+    // just switch the flow into the ring on and off
+    private volatile boolean sessionOpen;
+    private volatile boolean listening;
+    private Thread sessionThread;
+
+    // Recording and calibration both consume the ring, so only one may run at a time
+    private final AtomicBoolean consumerBusy = new AtomicBoolean();
+    // startSession() arrived while a consumer held the ring; opened when it lets go (guarded by this)
+    private boolean sessionPending;
+
+    // Tap to first audio reaching the processing thread, for comparing session vs per-utterance capture
+    private volatile float lastStartLatencyMs = -1f;
+    private volatile boolean lastStartUsedSession;
+
+    // Most recent pre-trigger samples, overwritten in a circle until voice is detected
+    private final short[] preRoll = new short[MAX_PRE_ROLL_SAMPLES];
+    private int preRollPos;
+    private int preRollFilled;
+    private volatile int preRollSamples = SAMPLE_RATE * DEFAULT_PRE_ROLL_MS / 1000;
+
     public interface RecordingCallback {
-        void onRecordingFinished(short[] audioData);
+        // mfccResult is extracted while recording, so callers don't need to run extractMFCCs().
+        // mfccResult.sampleCount is the trimmed length; getLastTrimmedPcm() has the audio itself.
+        // Its frames are the extractor's own storage, overwritten by the next recording.
+        void onRecordingFinished(CustomMFCC.MfccResult mfccResult);
         void onError(Exception e);
     }
 
@@ -46,45 +110,51 @@ public class AudioEngine {
     }
 
     private void calibrationLoop() {
-        @SuppressLint("MissingPermission") AudioRecord recorder = new AudioRecord(
-                MediaRecorder.AudioSource.MIC,
-                SAMPLE_RATE,
-                AudioFormat.CHANNEL_IN_MONO,
-                AudioFormat.ENCODING_PCM_16BIT,
-                AudioRecord.getMinBufferSize(SAMPLE_RATE,
-                        AudioFormat.CHANNEL_IN_MONO,
-                        AudioFormat.ENCODING_PCM_16BIT)
-        );
-
-        short[] buffer = new short[BUFFER_SIZE];
-        List<Integer> amplitudes = new ArrayList<>();
-
-        recorder.startRecording();
-        long startTime = System.currentTimeMillis();
+        if (!consumerBusy.compareAndSet(false, true)) {
+            calibrationCallback.onCalibrationError(new Exception("Calibration failed: recording in progress."));
+            return;
+        }
 
-        while (System.currentTimeMillis() - startTime < 1500) { // 1.5 sec calibration
-            int read = recorder.read(buffer, 0, BUFFER_SIZE);
-            if (read > 0) {
-                int max = getMaxAmplitude(buffer);
-                amplitudes.add(max);
+        long sum = 0;
+        double rmsSum = 0;
+        int count = 0;
+        try {
+            AudioRecord recorder = beginCapture();
+            short[] buffer = processChunk;
+            long startTime = System.currentTimeMillis();
+
+            while (System.currentTimeMillis() - startTime < 1500) { // 1.5 sec calibration
+                int read = ring.read(buffer, 0, BUFFER_SIZE, READ_TIMEOUT_NS);
+                if (read > 0) {
+                    sum += getMaxAmplitude(buffer, read);
+                    rmsSum += NoiseFloorTracker.rms(buffer, read);
+                    count++;
+                } else if (ring.isClosed()) {
+                    break;
+                }
             }
-        }
 
-        recorder.stop();
-        recorder.release();
+            endCapture(recorder);
+        } catch (RuntimeException e) {
+            calibrationCallback.onCalibrationError(e);
+            return;
+        } finally {
+            releaseConsumer();
+        }
 
-        if (amplitudes.isEmpty()) {
+        if (count == 0) {
             calibrationCallback.onCalibrationError(new Exception("Calibration failed: no samples."));
             return;
         }
 
-        int avg = 0;
-        for (int a : amplitudes) avg += a;
-        avg /= amplitudes.size();
+        int avg = (int) (sum / count);
 
         // Adaptive threshold = avg * multiplier
         adaptiveThreshold = (int) (avg * 2.5f);
 
+        // The tracker keeps adapting from here
+        noiseFloor.seed((float) (rmsSum / count));
+
         Log.d("AudioEngine", "Calibration complete. Avg=" + avg +
                 " Threshold=" + adaptiveThreshold);
 
@@ -96,30 +166,49 @@ public class AudioEngine {
     // ---------------------------------------------------------
     public void startRecording(RecordingCallback callback) {
         this.callback = callback;
-        new Thread(this::recordLoop).start();
+        long requestedAt = System.nanoTime();
+        new Thread(() -> {
+            if (!consumerBusy.compareAndSet(false, true)) {
+                callback.onError(new Exception("Calibration in progress."));
+                return;
+            }
+            try {
+                recordLoop(requestedAt);
+            } finally {
+                releaseConsumer();
+            }
+        }).start();
     }
 
-    private void recordLoop() {
-        @SuppressLint("MissingPermission") AudioRecord recorder =
-                new AudioRecord(MediaRecorder.AudioSource.MIC,
-                        SAMPLE_RATE,
-                        AudioFormat.CHANNEL_IN_MONO,
-                        AudioFormat.ENCODING_PCM_16BIT,
-                        AudioRecord.getMinBufferSize(SAMPLE_RATE,
-                                AudioFormat.CHANNEL_IN_MONO,
-                                AudioFormat.ENCODING_PCM_16BIT));
-
-        recorder.startRecording();
+    private void recordLoop(long requestedAt) {
+        // Audio is drained by the capture thread into the ring; this thread only processes
+        AudioRecord recorder;
+        try {
+            recorder = beginCapture();
+        } catch (RuntimeException e) {
+            callback.onError(e);
+            return;
+        }
         isRecording = true;
+        boolean firstAudio = true;
 
-        List<Short> recordedData = new ArrayList<>();
-        short[] buffer = new short[BUFFER_SIZE];
+        short[] chunk = processChunk;
+        short[] recorded = nextRecordBuffer();
+        int recordedLength = 0;
         boolean triggered = false;
-        int silenceCounter = 0;
+        int peak = 0;
+
+        // MFCC frames are computed as chunks arrive instead of after silence is detected
+        extractor.reset();
+        preRollPos = 0;
+        preRollFilled = 0;
+        int preRollWanted = preRollSamples;
 
-        int activeThreshold = (adaptiveThreshold > 0)
-                ? adaptiveThreshold
-                : DEFAULT_SILENCE_THRESHOLD;
+        SpeculativeClassifier speculative = speculativeClassifier;
+        if (speculative != null) speculative.reset();
+
+        vad.reset();
+        vad.setEnergyThreshold(noiseFloor.getThreshold());
 
         long startTime = System.currentTimeMillis();
         long maxRecordTimeMs = 5000; // 5 seconds max
@@ -131,113 +220,370 @@ public class AudioEngine {
                 break;
             }
 
-            int read = recorder.read(buffer, 0, BUFFER_SIZE);
-            if (read <= 0) continue;
+            int read = ring.read(chunk, 0, BUFFER_SIZE, READ_TIMEOUT_NS);
+            if (read <= 0) {
+                if (ring.isClosed()) break;
+                continue;
+            }
+
+            if (firstAudio) {
+                firstAudio = false;
+                lastStartUsedSession = (recorder == null);
+                lastStartLatencyMs = (System.nanoTime() - requestedAt) / 1e6f;
+                Log.d("AudioEngine", "Start latency " + lastStartLatencyMs + " ms ("
+                        + (lastStartUsedSession ? "persistent session" : "per-utterance AudioRecord") + ")");
+            }
 
-            short[] chunk = new short[read];
-            System.arraycopy(buffer, 0, chunk, 0, read);
+            int max = getMaxAmplitude(chunk, read);
 
-            int max = getMaxAmplitude(chunk);
+            boolean voiceActive = vad.process(chunk, read);
 
-            boolean silent = max < activeThreshold;
+            // Background chunks keep the noise floor current; the threshold is held once triggered
+            if (!voiceActive && !vad.wasSpeechFrame()) noiseFloor.update(vad.getLastRms());
+            if (!triggered && !voiceActive) vad.setEnergyThreshold(noiseFloor.getThreshold());
 
-            if (!triggered && !silent) {
+            int start = 0;
+            if (!triggered && voiceActive) {
                 triggered = true;
-                Log.d("AudioEngine", "Voice detected. Recording started.");
+                int onset = findOnset(chunk, read, max);
+
+                // Keep preRollWanted samples ahead of the onset, reaching back into earlier chunks if needed
+                start = Math.max(0, onset - preRollWanted);
+                recordedLength = drainPreRoll(recorded, preRollWanted - (onset - start));
+                extractor.accept(recorded, 0, recordedLength);
+                Log.d("AudioEngine", "Voice detected. Recording started with "
+                        + (onset - start + recordedLength) * 1000 / SAMPLE_RATE + " ms pre-roll.");
+            } else if (!triggered) {
+                appendPreRoll(chunk, read);
             }
 
             if (triggered) {
-                for (short s : chunk) recordedData.add(s);
-
-                silenceCounter = silent ? silenceCounter + 1 : 0;
-
-                if (silenceCounter > SILENCE_DURATION) {
+                int count = Math.min(read - start, recorded.length - recordedLength);
+                System.arraycopy(chunk, start, recorded, recordedLength, count);
+                recordedLength += count;
+                extractor.accept(chunk, start, count);
+                peak = Math.max(peak, max);
+
+                // The VAD's hangover covers the trailing silence
+                if (!voiceActive) {
                     Log.d("AudioEngine", "Silence detected. Stopping.");
                     break;
                 }
+
+                if (recordedLength == recorded.length) {
+                    Log.d("AudioEngine", "Recording buffer full. Ending.");
+                    break;
+                }
+
+                if (speculative != null) {
+                    if (speculative.isStable()) {
+                        Log.d("AudioEngine", "Prediction stable after " + extractor.getSampleCount() * 1000L / SAMPLE_RATE
+                                + " ms. Stopping early.");
+                        break;
+                    }
+                    speculative.onFrames(extractor, 32767f / peak);
+                }
             }
         }
 
-        recorder.stop();
-        recorder.release();
+        endCapture(recorder);
 
-        short[] rawPcm = toShortArray(recordedData);
+        if (ring.getDroppedSamples() > 0) {
+            Log.w("AudioEngine", "Capture overran the ring buffer by " + ring.getDroppedSamples() + " samples");
+        }
 
-        if (rawPcm.length == 0) {
+        if (recordedLength == 0) {
             callback.onError(new Exception("No audio recorded."));
             return;
         }
 
-        short[] normalized = normalize(rawPcm);
-        short[] trimmed = trimSilenceStart(normalized);
-
-        if (trimmed.length < 1024) {
+        // Already trimmed at the onset while capturing
+        if (recordedLength < 1024) {
             callback.onError(new Exception("Audio too short after trim."));
             return;
         }
 
-        lastPcmBytes = shortsToBytes(trimmed);
-        callback.onRecordingFinished(trimmed);
+        // The peak was tracked while capturing and the extractor already pre-emphasized every
+        // frame, so normalization is just this gain; no further pass over the samples here
+        float gain = (peak > 0) ? 32767f / peak : 1f;
+        CustomMFCC.MfccResult mfccResult = extractor.finish(gain);
+
+        synchronized (this) {
+            lastRecording = recorded;
+            lastRecordingLength = recordedLength;
+            lastGain = gain;
+            lastPcmBytes = null;
+        }
+        callback.onRecordingFinished(mfccResult);
     }
 
     // ---------------------------------------------------------
-    // UTILITY METHODS
+    // CAPTURE (persistent session or one AudioRecord per utterance)
     // ---------------------------------------------------------
-    private int getMaxAmplitude(short[] buffer) {
-        int max = 0;
-        for (short val : buffer) {
-            max = Math.max(max, Math.abs(val));
+
+    /**
+     * Opens a long-lived AudioRecord on a dedicated audio-priority thread, so recordings and
+     * calibrations skip the HAL start-up. Call from onResume(); without the RECORD_AUDIO
+     * permission the session stays closed and each utterance opens its own AudioRecord.
+     */
+    public synchronized void startSession() {
+        sessionPending = false;
+        if (sessionOpen) return;
+
+        // A recording or calibration may still be reading the ring from its own AudioRecord
+        // (or draining a session that just closed); resetting it now would pull it out from under them
+        if (consumerBusy.get()) {
+            sessionPending = true;
+            Log.d("AudioEngine", "Capture session deferred until the current capture ends");
+            return;
         }
-        return max;
+
+        AudioRecord recorder = createRecorder();
+        if (recorder.getState() != AudioRecord.STATE_INITIALIZED) {
+            recorder.release();
+            Log.w("AudioEngine", "AudioRecord unavailable; falling back to per-utterance capture");
+            return;
+        }
+
+        ring.reset();
+        listening = false;
+        idleVad.reset();
+        idleVad.setEnergyThreshold(noiseFloor.getThreshold());
+        recorder.startRecording();
+        sessionOpen = true;
+        sessionThread = new Thread(() -> {
+            captureLoop(recorder, true);
+            recorder.stop();
+            recorder.release();
+        }, "audio-session");
+        sessionThread.start();
+        Log.d("AudioEngine", "Capture session opened");
     }
 
-    private short[] toShortArray(List<Short> list) {
-        short[] arr = new short[list.size()];
-        for (int i = 0; i < list.size(); i++) arr[i] = list.get(i);
-        return arr;
+    // Call from onPause(); a recording in progress ends as if the input closed
+    public synchronized void stopSession() {
+        sessionPending = false;
+        if (!sessionOpen) return;
+        sessionOpen = false;
+        try {
+            sessionThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sessionThread = null;
+        Log.d("AudioEngine", "Capture session closed");
     }
 
-    private short[] normalize(short[] audio) {
-        int max = getMaxAmplitude(audio);
-        if (max == 0) return audio;
+    public boolean isSessionOpen() {
+        return sessionOpen;
+    }
 
-        float factor = 32767f / max;
-        short[] out = new short[audio.length];
+    // Opens a session requested while the finished recording or calibration held the ring
+    private void releaseConsumer() {
+        consumerBusy.set(false);
+        synchronized (this) {
+            if (sessionPending) startSession();
+        }
+    }
 
-        for (int i = 0; i < audio.length; i++) {
-            out[i] = (short) Math.max(Math.min(audio[i] * factor, 32767), -32768);
+    // Starts audio flowing into the ring; returns the one-off AudioRecord, or null when the session is used.
+    // Synchronized with startSession() so the two never both own the ring.
+    private synchronized AudioRecord beginCapture() {
+        if (sessionOpen) {
+            ring.discard(); // whatever arrived since the last utterance
+            listening = true;
+            return null;
         }
-        return out;
+
+        AudioRecord recorder = createRecorder();
+        if (recorder.getState() != AudioRecord.STATE_INITIALIZED) {
+            recorder.release();
+            throw new IllegalStateException("AudioRecord could not be initialized.");
+        }
+        ring.reset();
+        recorder.startRecording();
+        capturing = true;
+        captureThread = new Thread(() -> captureLoop(recorder, false), "audio-capture");
+        captureThread.start();
+        return recorder;
+    }
+
+    private void endCapture(AudioRecord recorder) {
+        if (recorder == null) {
+            listening = false;
+            return;
+        }
+
+        capturing = false;
+        try {
+            captureThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        recorder.stop();
+        recorder.release();
     }
 
-    private short[] trimSilenceStart(short[] audio) {
-        int start = 0;
-        for (int i = 0; i < audio.length; i++) {
-            if (Math.abs(audio[i]) > TRIM_THRESHOLD) {
-                start = i;
+    @SuppressLint("MissingPermission")
+    private AudioRecord createRecorder() {
+        return new AudioRecord(MediaRecorder.AudioSource.MIC,
+                SAMPLE_RATE,
+                AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT,
+                AudioRecord.getMinBufferSize(SAMPLE_RATE,
+                        AudioFormat.CHANNEL_IN_MONO,
+                        AudioFormat.ENCODING_PCM_16BIT));
+    }
+
+    // Producer side of the ring. A session keeps reading between utterances so the
+    // AudioRecord never overruns, but only passes audio on while someone is listening.
+    private void captureLoop(AudioRecord recorder, boolean session) {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+        short[] buffer = captureBuffer;
+        while (session ? sessionOpen : capturing) {
+            int read = recorder.read(buffer, 0, BUFFER_SIZE);
+            if (read < 0) {
+                Log.e("AudioEngine", "AudioRecord read failed: " + read);
+                if (session) sessionOpen = false;
                 break;
             }
+            if (!session || listening) {
+                ring.write(buffer, 0, read);
+            } else {
+                // Nobody is listening, but people may still talk: only non-speech moves the floor
+                updateIdleNoiseFloor(buffer, read);
+            }
         }
-        int len = audio.length - start;
-        short[] trimmed = new short[len];
-        System.arraycopy(audio, start, trimmed, 0, len);
-        return trimmed;
+        ring.close();
+    }
+
+    // Same gating as the recording loop: skip speech chunks and their hangover
+    private void updateIdleNoiseFloor(short[] chunk, int length) {
+        boolean voiceActive = idleVad.process(chunk, length);
+        if (!voiceActive && !idleVad.wasSpeechFrame()) noiseFloor.update(idleVad.getLastRms());
+        if (!voiceActive) idleVad.setEnergyThreshold(noiseFloor.getThreshold());
     }
 
-    private byte[] shortsToBytes(short[] data) {
-        byte[] out = new byte[data.length * 2];
-        for (int i = 0; i < data.length; i++) {
-            out[i * 2] = (byte) (data[i] & 0xFF);
-            out[i * 2 + 1] = (byte) ((data[i] >> 8) & 0xFF);
+    // Keeps the last preRoll.length samples heard before the trigger
+    private void appendPreRoll(short[] chunk, int length) {
+        int offset = Math.max(0, length - preRoll.length);
+        for (int i = offset; i < length; ) {
+            int n = Math.min(length - i, preRoll.length - preRollPos);
+            System.arraycopy(chunk, i, preRoll, preRollPos, n);
+            preRollPos = (preRollPos + n) % preRoll.length;
+            i += n;
+        }
+        preRollFilled = Math.min(preRoll.length, preRollFilled + length);
+    }
+
+    // Copies the newest min(wanted, available) pre-roll samples, oldest first, to the start of recorded
+    private int drainPreRoll(short[] recorded, int wanted) {
+        int count = Math.min(Math.max(wanted, 0), preRollFilled);
+        int from = (preRollPos - count + preRoll.length) % preRoll.length;
+        int first = Math.min(count, preRoll.length - from);
+        System.arraycopy(preRoll, from, recorded, 0, first);
+        System.arraycopy(preRoll, 0, recorded, first, count - first);
+        return count;
+    }
+
+    // ---------------------------------------------------------
+    // UTILITY METHODS
+    // ---------------------------------------------------------
+    private int getMaxAmplitude(short[] buffer, int length) {
+        int max = 0;
+        for (int i = 0; i < length; i++) {
+            max = Math.max(max, Math.abs(buffer[i]));
+        }
+        return max;
+    }
+
+    // First sample of the trigger chunk above TRIM_THRESHOLD once the chunk is peak-normalized.
+    // The streaming extractor needs the onset up front, so the trigger chunk's peak stands in
+    // for the peak of the whole utterance.
+    private int findOnset(short[] chunk, int length, int chunkPeak) {
+        if (chunkPeak == 0) return 0;
+        float threshold = TRIM_THRESHOLD * chunkPeak / 32767f;
+        for (int i = 0; i < length; i++) {
+            if (Math.abs(chunk[i]) > threshold) return i;
+        }
+        return 0;
+    }
+
+    // The buffer the last utterance is not in
+    private synchronized short[] nextRecordBuffer() {
+        return (lastRecording == recordBuffers[0]) ? recordBuffers[1] : recordBuffers[0];
+    }
+
+    // Peak-normalized little-endian 16-bit PCM, in one pass straight from the raw samples
+    private static byte[] normalizedPcmBytes(short[] audio, int length, float gain) {
+        byte[] out = new byte[length * 2];
+        for (int i = 0; i < length; i++) {
+            short s = (short) Math.max(Math.min(audio[i] * gain, 32767), -32768);
+            out[i * 2] = (byte) (s & 0xFF);
+            out[i * 2 + 1] = (byte) ((s >> 8) & 0xFF);
         }
         return out;
     }
 
-    public byte[] getLastTrimmedPcm() {
+    /**
+     * Enables early stopping on a stable speculative prediction; null turns it off.
+     * Takes effect from the next recording.
+     */
+    public void setSpeculativeClassifier(SpeculativeClassifier classifier) {
+        speculativeClassifier = classifier;
+    }
+
+    /**
+     * Audio kept from before voice is detected, clamped to MIN_PRE_ROLL_MS..MAX_PRE_ROLL_MS.
+     * Takes effect from the next recording.
+     */
+    public void setPreRollMs(int ms) {
+        int clamped = Math.max(MIN_PRE_ROLL_MS, Math.min(MAX_PRE_ROLL_MS, ms));
+        preRollSamples = SAMPLE_RATE * clamped / 1000;
+    }
+
+    // Time from startRecording() to the first audio being processed, or -1 before any recording
+    public float getLastStartLatencyMs() {
+        return lastStartLatencyMs;
+    }
+
+    public boolean lastStartUsedSession() {
+        return lastStartUsedSession;
+    }
+
+    // Copy of the last utterance as captured, before normalization, or null before any recording
+    public synchronized short[] copyLastRecording() {
+        return (lastRecording != null) ? Arrays.copyOf(lastRecording, lastRecordingLength) : null;
+    }
+
+    // Peak-normalization gain of the last utterance, as passed to the MFCC extractor
+    public synchronized float getLastGain() {
+        return lastGain;
+    }
+
+    // Peak-normalized PCM of the last utterance, built on the first call after each recording
+    public synchronized byte[] getLastTrimmedPcm() {
+        if (lastRecording == null) return null;
+        if (lastPcmBytes == null) {
+            lastPcmBytes = normalizedPcmBytes(lastRecording, lastRecordingLength, lastGain);
+        }
         return lastPcmBytes;
     }
 
     public int getAdaptiveThreshold() {
         return adaptiveThreshold;
     }
+
+    // Current VAD trigger level (RMS), noise estimate and how often the level has moved
+    public float getVadThreshold() {
+        return noiseFloor.getThreshold();
+    }
+
+    public float getNoiseFloor() {
+        return noiseFloor.getNoiseFloor();
+    }
+
+    public int getThresholdChanges() {
+        return noiseFloor.getThresholdChanges();
+    }
 }
@@ -0,0 +1,313 @@
+package com.example.fltr;
+
+import org.tensorflow.lite.Interpreter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Offline re-scoring of saved recordings (the WAVs saveLastRecordingAsWav writes). Files are
+ * decoded and turned into MFCCs on a worker pool while the model consumes them in batches
+ * of [B][TARGET_NUM_FRAMES][NUM_MFCC]. Results, with per-stage timings, go to a CSV.
+ * Files not sampled at CustomMFCC.SAMPLE_RATE are listed with a reason instead of scored.
+ *
+ * Has no Android dependencies so it can run from a JVM unit test or main() on a Linux box,
+ * given a TFLite JNI library for the host on java.library.path.
+ */
+public class BatchScorer {
+
+    /** Classifier over a flat [batchSize][TARGET_NUM_FRAMES][NUM_MFCC] input. */
+    public interface Model extends AutoCloseable {
+        int numLabels();
+
+        // Writes flat [batchSize][numLabels()] scores into output
+        void run(FloatBuffer input, int batchSize, float[] output);
+
+        @Override
+        void close();
+    }
+
+    /** TFLite model whose batch dimension is resized to match each batch. */
+    public static class TfliteModel implements Model {
+        private final Interpreter interpreter;
+        private int numLabels;
+        private int batchSize = -1;
+        private ByteBuffer inputBuffer;
+        private ByteBuffer outputBuffer;
+
+        public TfliteModel(File modelFile, int numThreads) throws IOException {
+            MappedByteBuffer model;
+            try (FileInputStream in = new FileInputStream(modelFile);
+                 FileChannel channel = in.getChannel()) {
+                model = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            interpreter = new Interpreter(model, new Interpreter.Options().setNumThreads(numThreads));
+            numLabels = interpreter.getOutputTensor(0).shape()[1];
+        }
+
+        @Override
+        public int numLabels() {
+            return numLabels;
+        }
+
+        @Override
+        public void run(FloatBuffer input, int batchSize, float[] output) {
+            if (batchSize != this.batchSize) resize(batchSize);
+
+            inputBuffer.clear();
+            inputBuffer.asFloatBuffer().put(input);
+            outputBuffer.rewind();
+            interpreter.run(inputBuffer, outputBuffer);
+
+            outputBuffer.rewind();
+            outputBuffer.asFloatBuffer().get(output, 0, batchSize * numLabels);
+        }
+
+        private void resize(int batchSize) {
+            interpreter.resizeInput(0, new int[]{batchSize, CustomMFCC.TARGET_NUM_FRAMES, CustomMFCC.NUM_MFCC});
+            interpreter.allocateTensors();
+            numLabels = interpreter.getOutputTensor(0).shape()[1];
+            inputBuffer = ByteBuffer.allocateDirect(interpreter.getInputTensor(0).numBytes())
+                    .order(ByteOrder.nativeOrder());
+            outputBuffer = ByteBuffer.allocateDirect(interpreter.getOutputTensor(0).numBytes())
+                    .order(ByteOrder.nativeOrder());
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void close() {
+            interpreter.close();
+        }
+    }
+
+    public static class Row {
+        public final String file;
+        public final int bestIndex;
+        public final String label;
+        public final float confidence;
+        public final int frames;
+        public final float decodeMs;
+        public final float mfccMs;
+        public final float inferenceMs; // this file's share of its batch
+        public final String rejected;   // why the file was not scored, or null
+
+        public Row(String file, int bestIndex, String label, float confidence, int frames,
+                   float decodeMs, float mfccMs, float inferenceMs) {
+            this(file, bestIndex, label, confidence, frames, decodeMs, mfccMs, inferenceMs, null);
+        }
+
+        public Row(String file, int bestIndex, String label, float confidence, int frames,
+                   float decodeMs, float mfccMs, float inferenceMs, String rejected) {
+            this.file = file;
+            this.bestIndex = bestIndex;
+            this.label = label;
+            this.confidence = confidence;
+            this.frames = frames;
+            this.decodeMs = decodeMs;
+            this.mfccMs = mfccMs;
+            this.inferenceMs = inferenceMs;
+            this.rejected = rejected;
+        }
+    }
+
+    // Output of the decode + MFCC stage for one file
+    private static class Features {
+        final float[] mfcc = new float[CustomMFCC.OUTPUT_SIZE];
+        int frames;
+        float decodeMs;
+        float mfccMs;
+        String rejected; // set instead of the MFCCs when the file can't be featurized as recorded
+    }
+
+    private final Model model;
+    private final List<String> labels;
+    private final int workers;
+    private final int batchSize;
+
+    public BatchScorer(Model model, List<String> labels, int workers, int batchSize) {
+        this.model = model;
+        this.labels = labels;
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public List<Row> score(List<File> wavs) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        ThreadLocal<CustomMFCC.MfccWorkspace> workspaces = ThreadLocal.withInitial(CustomMFCC.MfccWorkspace::new);
+
+        try {
+            List<Future<Features>> pending = new ArrayList<>(wavs.size());
+            for (File wav : wavs) {
+                pending.add(pool.submit(() -> extract(wav, workspaces.get())));
+            }
+
+            Row[] rows = new Row[wavs.size()];
+            FloatBuffer input = ByteBuffer.allocateDirect(batchSize * CustomMFCC.OUTPUT_SIZE * 4)
+                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
+            float[] scores = new float[batchSize * model.numLabels()];
+            Features[] batch = new Features[batchSize];
+            int[] batchFiles = new int[batchSize];
+            int count = 0;
+
+            // Files are consumed in order while later ones are still being extracted; rejected
+            // files get their row straight away and don't take a batch slot
+            for (int f = 0; f < wavs.size(); f++) {
+                Features features = await(pending.get(f));
+                if (features.rejected != null) {
+                    rows[f] = new Row(wavs.get(f).getName(), -1, "", 0f, 0,
+                            features.decodeMs, 0f, 0f, features.rejected);
+                } else {
+                    batch[count] = features;
+                    batchFiles[count] = f;
+                    count++;
+                }
+
+                if (count == batchSize || (count > 0 && f == wavs.size() - 1)) {
+                    runBatch(wavs, batch, batchFiles, count, input, scores, rows);
+                    count = 0;
+                }
+            }
+            return new ArrayList<>(Arrays.asList(rows));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void runBatch(List<File> wavs, Features[] batch, int[] batchFiles, int count,
+                          FloatBuffer input, float[] scores, Row[] rows) {
+        input.clear();
+        for (int i = 0; i < count; i++) {
+            input.put(batch[i].mfcc);
+        }
+        input.flip();
+
+        long inferenceStart = System.nanoTime();
+        model.run(input, count, scores);
+        float inferenceMs = (System.nanoTime() - inferenceStart) / 1e6f / count;
+
+        int numLabels = model.numLabels();
+        for (int i = 0; i < count; i++) {
+            int best = argmax(scores, i * numLabels, numLabels);
+            String label = (best < labels.size()) ? labels.get(best) : "unknown";
+            rows[batchFiles[i]] = new Row(wavs.get(batchFiles[i]).getName(), best, label, scores[i * numLabels + best],
+                    batch[i].frames, batch[i].decodeMs, batch[i].mfccMs, inferenceMs);
+        }
+    }
+
+    private static Features extract(File wav, CustomMFCC.MfccWorkspace workspace) throws IOException {
+        Features features = new Features();
+
+        long start = System.nanoTime();
+        WavReader.WavData data = WavReader.read(wav);
+        short[] pcm = data.samples;
+        features.decodeMs = (System.nanoTime() - start) / 1e6f;
+
+        // The filterbank and frame timing assume the capture rate; other rates would score as noise
+        if (data.sampleRate != CustomMFCC.SAMPLE_RATE) {
+            features.rejected = "sample rate " + data.sampleRate + " Hz, expected " + CustomMFCC.SAMPLE_RATE;
+            return features;
+        }
+
+        start = System.nanoTime();
+        features.frames = CustomMFCC.extractMFCCs(pcm, pcm.length, workspace, features.mfcc);
+        features.mfccMs = (System.nanoTime() - start) / 1e6f;
+        return features;
+    }
+
+    private static Features await(Future<Features> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting features", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException("Feature extraction failed", e.getCause());
+        }
+    }
+
+    private static int argmax(float[] array, int offset, int length) {
+        int maxIdx = 0;
+        float maxVal = array[offset];
+        for (int i = 1; i < length; i++) {
+            if (array[offset + i] > maxVal) {
+                maxVal = array[offset + i];
+                maxIdx = i;
+            }
+        }
+        return maxIdx;
+    }
+
+    public static void writeCsv(List<Row> rows, Writer out) throws IOException {
+        out.write("file,label_index,label,confidence,frames,decode_ms,mfcc_ms,inference_ms,rejected\n");
+        for (Row row : rows) {
+            out.write(csvField(row.file) + "," + row.bestIndex + "," + csvField(row.label) + ","
+                    + String.format(Locale.US, "%.6f,%d,%.3f,%.3f,%.3f",
+                    row.confidence, row.frames, row.decodeMs, row.mfccMs, row.inferenceMs)
+                    + "," + csvField(row.rejected != null ? row.rejected : "") + "\n");
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    public static List<String> readLabels(File labelsFile) throws IOException {
+        List<String> labels = new ArrayList<>();
+        for (String line : Files.readAllLines(labelsFile.toPath(), StandardCharsets.UTF_8)) {
+            String label = line.trim();
+            if (!label.isEmpty()) labels.add(label);
+        }
+        return labels;
+    }
+
+    // Usage: BatchScorer <wav dir> <model.tflite> <labels.txt> <out.csv> [batch size] [workers]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: BatchScorer <wav dir> <model.tflite> <labels.txt> <out.csv> [batch size] [workers]");
+            System.exit(2);
+        }
+
+        File[] files = new File(args[0]).listFiles((dir, name) -> name.toLowerCase(Locale.US).endsWith(".wav"));
+        if (files == null) throw new IOException("Not a directory: " + args[0]);
+        Arrays.sort(files);
+
+        int batch = (args.length > 4) ? Integer.parseInt(args[4]) : 16;
+        int workers = (args.length > 5) ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        List<Row> rows;
+        try (TfliteModel model = new TfliteModel(new File(args[1]), workers)) {
+            rows = new BatchScorer(model, readLabels(new File(args[2])), workers, batch).score(Arrays.asList(files));
+        }
+        try (Writer out = new FileWriter(args[3])) {
+            writeCsv(rows, out);
+        }
+        int rejected = 0;
+        for (Row row : rows) {
+            if (row.rejected == null) continue;
+            rejected++;
+            System.err.println("Rejected " + row.file + ": " + row.rejected);
+        }
+        System.out.println("Scored " + (rows.size() - rejected) + " of " + rows.size() + " files in " + (System.nanoTime() - start) / 1e6 + " ms");
+    }
+}
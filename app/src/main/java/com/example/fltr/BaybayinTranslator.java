@@ -1,7 +1,15 @@
 package com.example.fltr;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+
+/**
+ * Romanized Filipino to Baybayin, by greedy longest match of the syllables in baybayinMap.
+ * The map is compiled once into a character trie, so translating walks the word's letters
+ * without regexes or substring lookups. The model only emits the words in labels.txt, so
+ * InferenceHelper translates every label once at load time with translateAll().
+ */
 public class BaybayinTranslator {
 
     static final Map<String, String> baybayinMap = new HashMap<>();
@@ -125,51 +133,121 @@ public class BaybayinTranslator {
 
     }
 
+    // Trie over a-z compiled from baybayinMap. Node 0 is the root; a child of 0 means none.
+    private static final int ALPHABET = 26;
+    private static final int[] trieNext;
+    private static final String[] trieOutput;
+    private static final int[] trieDepth;
+
+    static {
+        int maxNodes = 1;
+        for (String key : baybayinMap.keySet()) maxNodes += key.length();
+
+        int[] next = new int[maxNodes * ALPHABET];
+        String[] output = new String[maxNodes];
+        int[] depth = new int[maxNodes];
+        int nodes = 1;
+        for (Map.Entry<String, String> entry : baybayinMap.entrySet()) {
+            String key = entry.getKey();
+            int node = 0;
+            for (int i = 0; i < key.length(); i++) {
+                int slot = node * ALPHABET + (key.charAt(i) - 'a');
+                if (next[slot] == 0) {
+                    depth[nodes] = i + 1;
+                    next[slot] = nodes++;
+                }
+                node = next[slot];
+            }
+            output[node] = entry.getValue();
+        }
+        trieNext = next;
+        trieOutput = output;
+        trieDepth = depth;
+    }
+
     /**
      * Translates a Filipino word into Baybayin script using syllable mapping.
      * @param word Filipino word
      * @return Baybayin translation
      */
     public static String translateToBaybayin(String word) {
-        word = word.toLowerCase().replaceAll("[^a-z]", "");
+        char[] letters = new char[word.length()];
+        int n = letters(word, letters);
 
-        StringBuilder result = new StringBuilder();
+        StringBuilder result = new StringBuilder(n * 2);
         int i = 0;
-        while (i < word.length()) {
-            String syllable = null;
-
-            // Try 3-letter syllable first, ensuring we don't go out of bounds
-            if (i + 2 < word.length()) {
-                syllable = word.substring(i, i + 3);
-                if (baybayinMap.containsKey(syllable)) {
-                    result.append(baybayinMap.get(syllable));
-                    i += 3;
-                    continue;
-                }
+        while (i < n) {
+            int node = longestMatch(letters, i, n);
+            if (node != 0) {
+                result.append(trieOutput[node]);
+                i += trieDepth[node];
+            } else {
+                result.append(letters[i]); // fallback
+                i++;
             }
+        }
+        return result.toString();
+    }
 
-            // Then try 2-letter syllable, ensuring we don't go out of bounds
-            if (i + 1 < word.length()) {
-                syllable = word.substring(i, i + 2);
-                if (baybayinMap.containsKey(syllable)) {
-                    result.append(baybayinMap.get(syllable));
-                    i += 2;
-                    continue;
-                }
-            }
+    /**
+     * Splits a word into the syllables translateToBaybayin() maps, for display, e.g.
+     * "salamat" -> "sa · la · ma · t". Letters with no mapping stand alone.
+     */
+    public static String segmentSyllables(String word) {
+        if (word == null) return "";
+        char[] letters = new char[word.length()];
+        int n = letters(word, letters);
 
-            // Try single vowel
-            syllable = word.substring(i, i + 1);
-            if (baybayinMap.containsKey(syllable)) {
-                result.append(baybayinMap.get(syllable));
-            } else {
-                result.append(syllable); // fallback
-            }
+        StringBuilder out = new StringBuilder(n * 2);
+        int i = 0;
+        while (i < n) {
+            int node = longestMatch(letters, i, n);
+            int length = (node != 0) ? trieDepth[node] : 1;
+            if (out.length() > 0) out.append(" · ");
+            out.append(letters, i, length);
+            i += length;
+        }
+        return out.toString();
+    }
 
-            i++;
+    // Baybayin for each label, indexed like the model's output
+    public static String[] translateAll(List<String> labels) {
+        String[] table = new String[labels.size()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = translateToBaybayin(labels.get(i));
         }
+        return table;
+    }
 
-        return result.toString();
+    // segmentSyllables() for each label, indexed like the model's output
+    public static String[] segmentAll(List<String> labels) {
+        String[] table = new String[labels.size()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = segmentSyllables(labels.get(i));
+        }
+        return table;
+    }
+
+    // Lowercase ASCII letters of word into out, everything else dropped; returns the count
+    private static int letters(String word, char[] out) {
+        int n = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= 'A' && c <= 'Z') c = (char) (c + ('a' - 'A'));
+            if (c >= 'a' && c <= 'z') out[n++] = c;
+        }
+        return n;
     }
-}
 
+    // Trie node of the longest syllable starting at letters[start], or 0 if none
+    private static int longestMatch(char[] letters, int start, int end) {
+        int node = 0;
+        int match = 0;
+        for (int j = start; j < end; j++) {
+            node = trieNext[node * ALPHABET + (letters[j] - 'a')];
+            if (node == 0) break;
+            if (trieOutput[node] != null) match = node;
+        }
+        return match;
+    }
+}
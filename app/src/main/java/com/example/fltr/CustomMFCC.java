@@ -2,301 +2,652 @@ package com.example.fltr;
 
 import android.util.Log;
 
+import org.tensorflow.lite.DataType;
 import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
 
 import org.tensorflow.lite.support.common.FileUtil;
 
 import android.content.Context;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.MappedByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
 public class CustomMFCC {
-    private static final int SAMPLE_RATE = 44100;
-    private static final int NUM_MFCC = 20;
+    public static final int SAMPLE_RATE = 44100;
+    public static final int NUM_MFCC = 20;
     private static final int NUM_MELS = 40;
     private static final int FFT_SIZE = 2048;
     static final int HOP_SIZE = 512;
-    private static final int TARGET_NUM_FRAMES = 221;
+    public static final int TARGET_NUM_FRAMES = 221;
     private static final double PRE_EMPHASIS = 0.97;
 
-    // Container class to hold MFCC data and original frame count
+    // 5 s cap on a single recording in AudioEngine
+    public static final int MAX_RECORD_SAMPLES = SAMPLE_RATE * 5;
+    // Flat size of the padded [TARGET_NUM_FRAMES][NUM_MFCC] model input
+    public static final int OUTPUT_SIZE = TARGET_NUM_FRAMES * NUM_MFCC;
+    // Source of the padding rows bulk-written after an utterance's frames; never modified
+    private static final float[] ZERO_INPUT = new float[OUTPUT_SIZE];
+
+    // Bit-reversal, twiddle and window tables shared by every frame
+    private static final FftPlan FFT_PLAN = new FftPlan(FFT_SIZE);
+
+    // Sparse triangular filters, built once instead of per frame
+    private static final MelFilterBank MEL_FILTER_BANK = new MelFilterBank(NUM_MELS, FFT_SIZE, SAMPLE_RATE);
+
+    // DCT-II cosines never change, so they are evaluated once
+    private static final float[] DCT_BASIS = buildDctBasis();
+
+    // Real-input FFT (half-length complex transform) for the power spectrogram
+    private static volatile boolean realFftEnabled = true;
+
+    // Opt-in float32 FFT/power/mel/DCT path (double precision by default)
+    private static volatile boolean floatPrecisionEnabled = false;
+
+    /**
+     * MFCC frames of one utterance, kept flat. The streaming extractor hands out its own row
+     * storage and reuses it for the next utterance, so anything kept past the recording
+     * callback must be copied, e.g. with paddedMfcc().
+     */
     public static class MfccResult {
-        public final float[][] paddedMfcc;
-        public final float[][] originalMfcc;
+        // Row-major [originalFrameCount][NUM_MFCC] in the first originalFrameCount * NUM_MFCC entries
+        public final float[] frames;
         public final int originalFrameCount;
         public final int sampleCount;
 
-        public MfccResult(float[][] paddedMfcc, float[][] originalMfcc, int originalFrameCount, int sampleCount) {
-            this.paddedMfcc = paddedMfcc;
-            this.originalMfcc = originalMfcc;
+        public MfccResult(float[] frames, int originalFrameCount, int sampleCount) {
+            this.frames = frames;
             this.originalFrameCount = originalFrameCount;
             this.sampleCount = sampleCount;
         }
+
+        // Writes the model input: the first TARGET_NUM_FRAMES frames, zero-padded, at out's position
+        public void writePadded(FloatBuffer out) {
+            int values = Math.min(originalFrameCount, TARGET_NUM_FRAMES) * NUM_MFCC;
+            out.put(frames, 0, values);
+            out.put(ZERO_INPUT, 0, OUTPUT_SIZE - values);
+        }
+
+        // Same as writePadded(FloatBuffer) into a flat [TARGET_NUM_FRAMES][NUM_MFCC] array
+        public void copyPadded(float[] out) {
+            int values = Math.min(originalFrameCount, TARGET_NUM_FRAMES) * NUM_MFCC;
+            System.arraycopy(frames, 0, out, 0, values);
+            Arrays.fill(out, values, OUTPUT_SIZE, 0f);
+        }
+
+        // A new [TARGET_NUM_FRAMES][NUM_MFCC] copy of the model input, for views and archives
+        public float[][] paddedMfcc() {
+            float[][] padded = new float[TARGET_NUM_FRAMES][NUM_MFCC];
+            int copyLen = Math.min(TARGET_NUM_FRAMES, originalFrameCount);
+            for (int i = 0; i < copyLen; i++) {
+                System.arraycopy(frames, i * NUM_MFCC, padded[i], 0, NUM_MFCC);
+            }
+            return padded;
+        }
     }
 
-    public static class InferenceHelper {
+    public static class InferenceHelper implements AutoCloseable {
+        public static final int DEFAULT_TOP_K = 5;
+        public static final float DEFAULT_REJECTION_THRESHOLD = 0.3f;
+
         public final Interpreter tflite;
         public final List<String> labels;
+        // Script output per label index, built once so a result maps to it by bestIndex
+        public final String[] baybayin;
+        public final String[] syllables;
+        public final InterpreterFactory.Backend backend;
+        public final ModelVariant variant;
+        private final InterpreterFactory.Created interpreter;
+
+        // Direct, native-order tensors sized from the model and reused on every call
+        private final ByteBuffer inputBuffer;
+        private final FloatBuffer inputFloats;
+        private final ByteBuffer outputBuffer;
+        private final FloatBuffer outputFloats;
+        private final float[] confidences;
+
+        // Top-K runner-ups and the confidence below which a prediction counts as "no match"
+        private volatile int topK = DEFAULT_TOP_K;
+        private volatile float rejectionThreshold = DEFAULT_REJECTION_THRESHOLD;
+
+        // Selection scratch, guarded by the helper's lock and reused on every run
+        private int[] topIndices = new int[DEFAULT_TOP_K];
+        private float[] topScores = new float[DEFAULT_TOP_K];
+
+        // Quantization of int8/uint8 tensors; float32 tensors are passed through
+        private final DataType inputType;
+        private final float inputScale;
+        private final int inputZeroPoint;
+        private final DataType outputType;
+        private final float outputScale;
+        private final int outputZeroPoint;
 
         public InferenceHelper(Context context) throws IOException {
-            MappedByteBuffer model = FileUtil.loadMappedFile(context, "mixed_augmented.tflite");
-            tflite = new Interpreter(model);
+            this(context, ModelVariant.selected(context));
+        }
+
+        public InferenceHelper(Context context, ModelVariant requested) throws IOException {
+            MappedByteBuffer model;
+            ModelVariant loaded = requested;
+            try {
+                model = FileUtil.loadMappedFile(context, requested.assetName);
+            } catch (IOException e) {
+                if (requested == ModelVariant.FLOAT32) throw e;
+                Log.w("CustomMFCC", requested + " model not bundled, using FLOAT32: " + e.getMessage());
+                loaded = ModelVariant.FLOAT32;
+                model = FileUtil.loadMappedFile(context, loaded.assetName);
+            }
+            variant = loaded;
+
+            interpreter = InterpreterFactory.create(model,
+                    InterpreterFactory.preferredBackend(context, model, variant.name()),
+                    InterpreterFactory.defaultThreadCount());
+            tflite = interpreter.interpreter;
+            backend = interpreter.backend;
             labels = FileUtil.loadLabels(context, "labels.txt");
+            baybayin = BaybayinTranslator.translateAll(labels);
+            syllables = BaybayinTranslator.segmentAll(labels);
+
+            Tensor inputTensor = tflite.getInputTensor(0);
+            Tensor outputTensor = tflite.getOutputTensor(0);
+            inputType = inputTensor.dataType();
+            inputScale = inputTensor.quantizationParams().getScale();
+            inputZeroPoint = inputTensor.quantizationParams().getZeroPoint();
+            outputType = outputTensor.dataType();
+            outputScale = outputTensor.quantizationParams().getScale();
+            outputZeroPoint = outputTensor.quantizationParams().getZeroPoint();
+
+            inputBuffer = ByteBuffer.allocateDirect(inputTensor.numBytes())
+                    .order(ByteOrder.nativeOrder());
+            outputBuffer = ByteBuffer.allocateDirect(outputTensor.numBytes())
+                    .order(ByteOrder.nativeOrder());
+
+            // Quantized models get a float staging area that is quantized into the tensor on run
+            inputFloats = (inputType == DataType.FLOAT32)
+                    ? inputBuffer.asFloatBuffer()
+                    : ByteBuffer.allocateDirect(inputTensor.numElements() * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            outputFloats = (outputType == DataType.FLOAT32) ? outputBuffer.asFloatBuffer() : null;
+            confidences = new float[labels.size()];
         }
 
-        // New method to run inference
-        public InferenceResult runInference(float[][] paddedMfcc) {
-            long startTime = System.currentTimeMillis();
+        // The model input ([1][TARGET_NUM_FRAMES][NUM_MFCC] float32) as a float view positioned at 0
+        private FloatBuffer getInputBuffer() {
+            inputFloats.clear();
+            return inputFloats;
+        }
+
+        public void setTopK(int k) {
+            topK = Math.max(1, k);
+        }
+
+        public void setRejectionThreshold(float threshold) {
+            rejectionThreshold = threshold;
+        }
 
-            int timeSteps = paddedMfcc.length;
-            int mfccCount = paddedMfcc[0].length;
+        /**
+         * Classifies a captured utterance. Its frames are written straight into the input
+         * tensor while the helper's lock is held, with no padded copy in between.
+         */
+        public synchronized InferenceResult runInference(MfccResult mfcc) {
+            mfcc.writePadded(getInputBuffer());
+            return runInference();
+        }
 
-            // Prepare input in original orientation [1][timeSteps][mfccCount]
-            float[][][] input = new float[1][timeSteps][mfccCount];
-            for (int i = 0; i < timeSteps; i++) {
-                for (int j = 0; j < mfccCount; j++) {
-                    input[0][i][j] = paddedMfcc[i][j];
+        /**
+         * Classifies [frames][NUM_MFCC] coefficients. Like the MfccResult overload, frames past
+         * TARGET_NUM_FRAMES are dropped and missing ones are zero-padded.
+         * @throws IllegalArgumentException if a row doesn't have NUM_MFCC coefficients
+         */
+        public synchronized InferenceResult runInference(float[][] paddedMfcc) {
+            int frames = Math.min(paddedMfcc.length, TARGET_NUM_FRAMES);
+            for (int i = 0; i < frames; i++) {
+                if (paddedMfcc[i] == null || paddedMfcc[i].length != NUM_MFCC) {
+                    throw new IllegalArgumentException("Frame " + i + " has "
+                            + (paddedMfcc[i] == null ? "no" : paddedMfcc[i].length) + " coefficients, expected " + NUM_MFCC);
                 }
             }
 
-            Log.d("CustomMFCC", "Input shape: [" + input.length + "][" + input[0].length + "][" + input[0][0].length + "]");
+            FloatBuffer input = getInputBuffer();
+            for (int i = 0; i < frames; i++) {
+                input.put(paddedMfcc[i]);
+            }
+            input.put(ZERO_INPUT, 0, OUTPUT_SIZE - frames * NUM_MFCC);
+            return runInference();
+        }
+
+        // Flat row-major [TARGET_NUM_FRAMES][NUM_MFCC], as written by extractMFCCs(..., float[] out)
+        public synchronized InferenceResult runInference(float[] flatMfcc) {
+            if (flatMfcc.length < OUTPUT_SIZE) {
+                throw new IllegalArgumentException("Input has " + flatMfcc.length + " values, expected " + OUTPUT_SIZE);
+            }
+            getInputBuffer().put(flatMfcc, 0, OUTPUT_SIZE);
+            return runInference();
+        }
+
+        // Runs the model on whatever the caller just wrote into getInputBuffer(), under the helper's lock
+        private InferenceResult runInference() {
+            long startTime = System.currentTimeMillis();
+
+            if (inputType != DataType.FLOAT32) quantizeInput();
+            inputBuffer.rewind();
+            outputBuffer.rewind();
+            tflite.run(inputBuffer, outputBuffer);
 
-            // Log sample input for debugging
-            Log.d("CustomMFCC", "TFLite Input sample:");
-            for (int i = 0; i < Math.min(3, mfccCount); i++) {
-                Log.d("CustomMFCC", "Input MFCC " + i + ": " + Arrays.toString(Arrays.copyOf(input[0][i], Math.min(20, mfccCount))));
+            if (outputFloats != null) {
+                outputFloats.clear();
+                outputFloats.get(confidences);
+            } else {
+                dequantizeOutput();
             }
 
-            // Run inference
-            float[][] output = new float[1][labels.size()];
-            tflite.run(input, output);
-            float[] confidences = output[0];
+            // Best prediction plus runner-ups, selected in place over the output
+            int k = topK;
+            if (topIndices.length < k) {
+                topIndices = new int[k];
+                topScores = new float[k];
+            }
+            int count = TopK.select(confidences, confidences.length, k, topIndices, topScores);
+
+            // The only per-run allocations: k-sized copies, because the result outlives this call.
+            // It is posted to the UI thread, kept by SpeculativeClassifier.getLastResult() and
+            // written by the session archive while later runs refill the scratch above.
+            int[] resultIndices = Arrays.copyOf(topIndices, count);
+            float[] resultScores = Arrays.copyOf(topScores, count);
+            String[] topLabels = new String[count];
+            for (int i = 0; i < count; i++) {
+                topLabels[i] = labels.get(topIndices[i]);
+            }
 
-            // Get best prediction
-            int bestIdx = argmax(confidences);
-            float confidence = confidences[bestIdx];
-            String predictedLabel = labels.get(bestIdx);
+            int bestIdx = topIndices[0];
+            float confidence = topScores[0];
+            String predictedLabel = topLabels[0];
+            boolean matched = confidence >= rejectionThreshold;
 
             Log.d("CustomMFCC", "Predicted class index: " + bestIdx);
-            Log.d("CustomMFCC", "Predicted label: " + predictedLabel);
+            Log.d("CustomMFCC", "Predicted label: " + predictedLabel + (matched ? "" : " (rejected)"));
             Log.d("CustomMFCC", "Confidence: " + confidence);
 
             // Calculate processing time
             long endTime = System.currentTimeMillis();
             float processingTimeSec = (endTime - startTime) / 1000f;
 
-            return new InferenceResult(bestIdx, predictedLabel, confidence, processingTimeSec);
+            return new InferenceResult(bestIdx, predictedLabel, confidence, processingTimeSec,
+                    matched, count, resultIndices, resultScores, topLabels);
         }
 
-        private int argmax(float[] array) {
-            int maxIdx = 0;
-            float maxVal = array[0];
-            for (int i = 1; i < array.length; i++) {
-                if (array[i] > maxVal) {
-                    maxVal = array[i];
-                    maxIdx = i;
-                }
+        @Override
+        public void close() {
+            interpreter.close();
+        }
+
+        // q = round(x / scale) + zeroPoint, clamped to the tensor's integer range
+        private void quantizeInput() {
+            int min = (inputType == DataType.UINT8) ? 0 : -128;
+            int max = (inputType == DataType.UINT8) ? 255 : 127;
+            float inverseScale = 1f / inputScale;
+
+            inputBuffer.clear();
+            for (int i = 0; i < inputBuffer.capacity(); i++) {
+                int q = Math.round(inputFloats.get(i) * inverseScale) + inputZeroPoint;
+                inputBuffer.put(i, (byte) Math.max(min, Math.min(max, q)));
+            }
+        }
+
+        // x = (q - zeroPoint) * scale
+        private void dequantizeOutput() {
+            boolean unsigned = (outputType == DataType.UINT8);
+            for (int i = 0; i < confidences.length; i++) {
+                int q = unsigned ? (outputBuffer.get(i) & 0xFF) : outputBuffer.get(i);
+                confidences[i] = (q - outputZeroPoint) * outputScale;
             }
-            return maxIdx;
         }
     }
 
-    // Result class to hold inference results
+    /**
+     * One prediction. Immutable and safe to hand to other threads; its top-K arrays are its
+     * own copies, not the helper's scratch.
+     */
     public static class InferenceResult {
         public final int bestIndex;
         public final String label;
         public final float confidence;
         public final float processingTimeSec;
 
-        public InferenceResult(int bestIndex, String label, float confidence, float processingTimeSec) {
+        // False when confidence is below the helper's rejection threshold
+        public final boolean matched;
+
+        // Best-first; entry 0 is the prediction above
+        public final int topCount;
+        public final int[] topIndices;
+        public final float[] topScores;
+        public final String[] topLabels;
+
+        public InferenceResult(int bestIndex, String label, float confidence, float processingTimeSec,
+                               boolean matched, int topCount, int[] topIndices, float[] topScores, String[] topLabels) {
             this.bestIndex = bestIndex;
             this.label = label;
             this.confidence = confidence;
             this.processingTimeSec = processingTimeSec;
+            this.matched = matched;
+            this.topCount = topCount;
+            this.topIndices = topIndices;
+            this.topScores = topScores;
+            this.topLabels = topLabels;
         }
     }
 
     public static MfccResult extractMFCCs(short[] pcm) {
-        float[] signal = normalizeAndPreEmphasize(pcm);
-        float[][] frames = frameSignal(signal);
-        double[][] powerSpectrogram = computePowerSpectrogram(frames);
-        double[][] melSpectrogram = applyMelFilterBank(powerSpectrogram);
-        float[][] mfcc = dct(melSpectrogram);
+        int numFrames = Math.max(frameCount(pcm.length), 0);
+        float[] mfcc = new float[numFrames * NUM_MFCC];
+        if (numFrames >= ParallelMfccExtractor.MIN_PARALLEL_FRAMES) {
+            // Whole recordings are long enough to be worth splitting across the big cores
+            ParallelMfccExtractor.shared().computeFrames(pcm, pcm.length, numFrames, mfcc);
+        } else {
+            computeFrames(pcm, pcm.length, numFrames, new MfccWorkspace(pcm.length), mfcc);
+        }
 
-        int originalFrameCount = mfcc.length;
+        Log.d("CustomMFCC", "Original frame count: " + numFrames);
+        return new MfccResult(mfcc, numFrames, pcm.length);
+    }
 
-        // Deep copy original MFCC (before padding)
-        float[][] originalMfcc = new float[originalFrameCount][NUM_MFCC];
-        for (int i = 0; i < originalFrameCount; i++) {
-            System.arraycopy(mfcc[i], 0, originalMfcc[i], 0, NUM_MFCC);
-        }
+    /**
+     * Allocation-free variant of extractMFCCs(short[]) for the capture path.
+     * Only the frames that survive padding/truncation to TARGET_NUM_FRAMES are computed.
+     * @param out flat row-major [TARGET_NUM_FRAMES][NUM_MFCC] buffer of at least OUTPUT_SIZE, zero-padded
+     * @return the frame count before padding/truncation
+     */
+    public static int extractMFCCs(short[] pcm, int length, MfccWorkspace workspace, float[] out) {
+        int numFrames = frameCount(length);
+        int written = computeFrames(pcm, length, Math.min(numFrames, TARGET_NUM_FRAMES), workspace, out);
+        Arrays.fill(out, written * NUM_MFCC, OUTPUT_SIZE, 0f);
+        return Math.max(numFrames, 0);
+    }
 
-        // Pad/truncate to TARGET_NUM_FRAMES
-        float[][] finalMFCC = new float[TARGET_NUM_FRAMES][NUM_MFCC];
-        int copyLen = Math.min(TARGET_NUM_FRAMES, mfcc.length);
-        for (int i = 0; i < copyLen; i++) {
-            System.arraycopy(mfcc[i], 0, finalMFCC[i], 0, NUM_MFCC);
-        }
+    /**
+     * Selects the real-input FFT (default) or the full complex FFT for the power spectrogram.
+     * Both produce the same spectrum within floating-point rounding.
+     */
+    public static void setRealFftEnabled(boolean enabled) {
+        realFftEnabled = enabled;
+    }
+
+    public static boolean isRealFftEnabled() {
+        return realFftEnabled;
+    }
 
-        Log.d("CustomMFCC", "Extracted MFCC shape: [" + finalMFCC.length + "][" + NUM_MFCC + "]");
-        Log.d("CustomMFCC", "Original frame count: " + originalFrameCount);
+    /**
+     * Runs the spectral stages in single precision end to end. Always uses the real-input FFT.
+     * Halves the memory traffic per frame; accuracy against the double path is checked by
+     * MfccPrecisionTest.
+     */
+    public static void setFloatPrecisionEnabled(boolean enabled) {
+        floatPrecisionEnabled = enabled;
+    }
 
-        return new MfccResult(finalMFCC, originalMfcc, originalFrameCount, pcm.length);
+    public static boolean isFloatPrecisionEnabled() {
+        return floatPrecisionEnabled;
     }
 
-    private static float[] normalizeAndPreEmphasize(short[] pcm) {
-        float[] floatSignal = new float[pcm.length];
-        for (int i = 0; i < pcm.length; i++) {
-            floatSignal[i] = pcm[i] / 32768.0f;
+    /**
+     * Preallocated scratch for the MFCC pipeline. One instance per thread; reusing it across
+     * calls keeps feature extraction from producing garbage on the audio thread.
+     */
+    public static class MfccWorkspace {
+        private float[] signal;
+        final float[] frame = new float[FFT_SIZE];
+        final double[] real = new double[FFT_SIZE];
+        final double[] imag = new double[FFT_SIZE];
+        final double[] power = new double[FFT_SIZE / 2 + 1];
+        final double[] mel = new double[NUM_MELS];
+
+        // Single-precision scratch, half the size since float mode only uses the real-input FFT
+        final float[] realF = new float[FFT_SIZE / 2];
+        final float[] imagF = new float[FFT_SIZE / 2];
+        final float[] powerF = new float[FFT_SIZE / 2 + 1];
+        final float[] melF = new float[NUM_MELS];
+
+        // Sized for the longest recording AudioEngine produces
+        public MfccWorkspace() {
+            this(MAX_RECORD_SAMPLES);
         }
 
-        float[] preEmphasized = new float[floatSignal.length];
-        preEmphasized[0] = floatSignal[0];
-        for (int i = 1; i < floatSignal.length; i++) {
-            preEmphasized[i] = (float) (floatSignal[i] - PRE_EMPHASIS * floatSignal[i - 1]);
+        public MfccWorkspace(int maxSamples) {
+            signal = new float[maxSamples];
         }
 
-        return preEmphasized;
+        // Pre-emphasized signal buffer, grown if a longer recording comes in
+        float[] signal(int length) {
+            if (signal.length < length) signal = new float[length];
+            return signal;
+        }
     }
 
-    private static float[][] frameSignal(float[] signal) {
-        int numFrames = 1 + (signal.length - FFT_SIZE) / HOP_SIZE;
-        float[][] frames = new float[numFrames][FFT_SIZE];
+    /**
+     * Frame-incremental MFCC extractor fed straight from the capture loop.
+     * Samples are pre-emphasized as they arrive and an MFCC row is emitted every time a
+     * FFT_SIZE window fills, keeping FFT_SIZE - HOP_SIZE samples of overlap for the next one.
+     * By the time silence is detected only the last frame is left to compute.
+     *
+     * The capture path peak-normalizes the PCM after recording, which can't be known while
+     * streaming. Scaling the signal by g only shifts every log-mel energy by 2*ln(g), and the
+     * DCT carries that constant into coefficient 0 alone, so finish() applies the gain there.
+     */
+    public static class StreamingExtractor {
+        private final float[] window = new float[FFT_SIZE];
+        private final MfccWorkspace workspace = new MfccWorkspace(0);
+        private float[] rows = new float[frameCount(MAX_RECORD_SAMPLES) * NUM_MFCC];
+        private int frames = 0;
+        private int filled = 0;
+        private int sampleCount = 0;
+        private float prevSample = 0f;
+
+        public void accept(short[] chunk, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                float x = chunk[i] / 32768.0f;
+                window[filled++] = (sampleCount == 0) ? x : (float) (x - PRE_EMPHASIS * prevSample);
+                prevSample = x;
+                sampleCount++;
+
+                if (filled == FFT_SIZE) {
+                    emitFrame();
+
+                    // Slide the window by one hop, keeping the overlap
+                    System.arraycopy(window, HOP_SIZE, window, 0, FFT_SIZE - HOP_SIZE);
+                    filled = FFT_SIZE - HOP_SIZE;
+                }
+            }
+        }
 
-        for (int i = 0; i < numFrames; i++) {
-            int start = i * HOP_SIZE;
-            for (int j = 0; j < FFT_SIZE; j++) {
-                frames[i][j] = (start + j < signal.length) ?
-                        (float) (signal[start + j] * (0.54 - 0.46 * Math.cos(2 * Math.PI * j / (FFT_SIZE - 1)))) :
-                        0;
+        public int getFrameCount() {
+            return frames;
+        }
+
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        /**
+         * Flushes the remaining frame and returns the same layout extractMFCCs() produces.
+         * The result wraps this extractor's rows without copying; they are valid until reset().
+         * @param gain normalization factor applied to the PCM after capture (1 if none)
+         */
+        public MfccResult finish(float gain) {
+            flush(gain);
+            return new MfccResult(rows, frames, sampleCount);
+        }
+
+        /**
+         * Copies the frames computed so far into a zero-padded [TARGET_NUM_FRAMES][NUM_MFCC]
+         * input, for classifying the utterance before it ends. The extractor keeps going.
+         * @param gain normalization the capture would apply if it ended now
+         * @return the number of frames copied
+         */
+        public int snapshot(float gain, float[] out) {
+            int count = Math.min(frames, TARGET_NUM_FRAMES);
+            System.arraycopy(rows, 0, out, 0, count * NUM_MFCC);
+            Arrays.fill(out, count * NUM_MFCC, OUTPUT_SIZE, 0f);
+
+            float c0Offset = c0Offset(gain);
+            for (int i = 0; i < count; i++) {
+                out[i * NUM_MFCC] += c0Offset;
             }
+            return count;
         }
-        return frames;
-    }
 
-    private static double[][] computePowerSpectrogram(float[][] frames) {
-        int numFrames = frames.length;
-        double[][] powerSpec = new double[numFrames][FFT_SIZE / 2 + 1];
+        private void flush(float gain) {
+            // Same frame count as the batch path; only a sub-FFT_SIZE signal yields a zero-padded frame
+            if (frames == 0 && frameCount(sampleCount) > 0) {
+                Arrays.fill(window, filled, FFT_SIZE, 0f);
+                emitFrame();
+            }
 
-        for (int i = 0; i < numFrames; i++) {
-            double[] real = new double[FFT_SIZE];
-            double[] imag = new double[FFT_SIZE];
-            for (int j = 0; j < FFT_SIZE; j++) {
-                real[j] = frames[i][j];
-                imag[j] = 0.0;
+            float c0Offset = c0Offset(gain);
+            for (int i = 0; i < frames; i++) {
+                rows[i * NUM_MFCC] += c0Offset;
             }
-            fft(real, imag);
+        }
 
-            for (int k = 0; k < FFT_SIZE / 2 + 1; k++) {
-                powerSpec[i][k] = (real[k] * real[k] + imag[k] * imag[k]) / FFT_SIZE;
+        private void emitFrame() {
+            if ((frames + 1) * NUM_MFCC > rows.length) {
+                rows = Arrays.copyOf(rows, rows.length * 2);
             }
+            computeFrame(window, FFT_SIZE, 0, workspace, rows, frames * NUM_MFCC);
+            frames++;
+        }
+
+        // Scaling the PCM by gain shifts every log-mel band by 2*ln(gain), which the DCT folds into c0
+        private static float c0Offset(float gain) {
+            return (gain > 0f) ? (float) (2 * NUM_MELS * Math.log(gain)) : 0f;
+        }
+
+        public void reset() {
+            frames = 0;
+            filled = 0;
+            sampleCount = 0;
+            prevSample = 0f;
         }
-        return powerSpec;
     }
 
-    private static double[][] applyMelFilterBank(double[][] powerSpec) {
-        int nFrames = powerSpec.length;
-        double[][] melSpec = new double[nFrames][NUM_MELS];
+    // Same semantics as the original framing: frames fully inside the signal, or one zero-padded frame
+    static int frameCount(int sampleCount) {
+        return 1 + (sampleCount - FFT_SIZE) / HOP_SIZE;
+    }
+
+    // Samples the first numFrames frames actually read
+    static int signalLength(int sampleCount, int numFrames) {
+        return Math.min(sampleCount, (numFrames - 1) * HOP_SIZE + FFT_SIZE);
+    }
+
+    // Pre-emphasizes just the samples the requested frames touch and computes them into out
+    private static int computeFrames(short[] pcm, int length, int numFrames, MfccWorkspace workspace, float[] out) {
+        if (numFrames <= 0) return 0;
+
+        int signalLength = signalLength(length, numFrames);
+        float[] signal = workspace.signal(signalLength);
+        normalizeAndPreEmphasize(pcm, signalLength, signal);
+        computeFrameRange(signal, signalLength, 0, numFrames, workspace, out);
+        return numFrames;
+    }
 
-        double[] melPoints = new double[NUM_MELS + 2];
-        double fMin = 0, fMax = SAMPLE_RATE / 2;
-        double melMin = hzToMel(fMin);
-        double melMax = hzToMel(fMax);
-        for (int i = 0; i < melPoints.length; i++) {
-            melPoints[i] = melToHz(melMin + (melMax - melMin) * i / (NUM_MELS + 1));
+    // Frames [from, to) of an already pre-emphasized signal; independent per frame, so ranges can run concurrently
+    static void computeFrameRange(float[] signal, int signalLength, int from, int to,
+                                  MfccWorkspace workspace, float[] out) {
+        for (int i = from; i < to; i++) {
+            computeFrame(signal, signalLength, i * HOP_SIZE, workspace, out, i * NUM_MFCC);
         }
+    }
 
-        int[] bin = new int[melPoints.length];
-        for (int i = 0; i < melPoints.length; i++) {
-            bin[i] = (int) Math.floor((FFT_SIZE + 1) * melPoints[i] / SAMPLE_RATE);
+    static void normalizeAndPreEmphasize(short[] pcm, int length, float[] out) {
+        float prev = pcm[0] / 32768.0f;
+        out[0] = prev;
+        for (int i = 1; i < length; i++) {
+            float x = pcm[i] / 32768.0f;
+            out[i] = (float) (x - PRE_EMPHASIS * prev);
+            prev = x;
         }
+    }
 
-        for (int i = 0; i < nFrames; i++) {
-            for (int m = 1; m <= NUM_MELS; m++) {
-                double sum = 0;
-                for (int k = bin[m - 1]; k < bin[m]; k++) {
-                    sum += ((k - bin[m - 1]) / (double) (bin[m] - bin[m - 1])) * powerSpec[i][k];
-                }
-                for (int k = bin[m]; k < bin[m + 1]; k++) {
-                    sum += (1 - (k - bin[m]) / (double) (bin[m + 1] - bin[m])) * powerSpec[i][k];
-                }
-                melSpec[i][m - 1] = Math.max(sum, 1e-10); // avoid log(0)
+    // Runs one FFT_SIZE window of pre-emphasized samples through window/FFT/mel/log/DCT
+    private static void computeFrame(float[] signal, int signalLength, int start,
+                                     MfccWorkspace workspace, float[] out, int outOffset) {
+        float[] frame = workspace.frame;
+
+        if (floatPrecisionEnabled) {
+            float[] window = FFT_PLAN.windowF;
+            for (int j = 0; j < FFT_SIZE; j++) {
+                frame[j] = (start + j < signalLength) ? signal[start + j] * window[j] : 0f;
             }
+            FFT_PLAN.realPowerSpectrum(frame, workspace.realF, workspace.imagF, workspace.powerF);
+            MEL_FILTER_BANK.apply(workspace.powerF, workspace.melF);
+            logMelToMfcc(workspace.melF, out, outOffset);
+            return;
         }
 
-        // Convert to log scale
-        for (int i = 0; i < melSpec.length; i++) {
-            for (int j = 0; j < melSpec[i].length; j++) {
-                melSpec[i][j] = Math.log(melSpec[i][j]);
-            }
+        double[] window = FFT_PLAN.window;
+        for (int j = 0; j < FFT_SIZE; j++) {
+            frame[j] = (start + j < signalLength) ?
+                    (float) (signal[start + j] * window[j]) :
+                    0;
+        }
+
+        if (realFftEnabled) {
+            FFT_PLAN.realPowerSpectrum(frame, workspace.real, workspace.imag, workspace.power);
+        } else {
+            FFT_PLAN.complexPowerSpectrum(frame, workspace.real, workspace.imag, workspace.power);
         }
 
-        return melSpec;
+        MEL_FILTER_BANK.apply(workspace.power, workspace.mel);
+        logMelToMfcc(workspace.mel, out, outOffset);
     }
 
-    private static float[][] dct(double[][] melSpec) {
-        int nFrames = melSpec.length;
-        float[][] mfcc = new float[nFrames][NUM_MFCC];
+    /**
+     * Fused log + DCT-II of one frame of mel energies. Takes the 40 logs in place and
+     * projects onto the cached basis, so no cosines are evaluated per frame.
+     */
+    static void logMelToMfcc(double[] mel, float[] mfccOut, int outOffset) {
+        for (int n = 0; n < NUM_MELS; n++) {
+            mel[n] = Math.log(mel[n]);
+        }
 
-        for (int i = 0; i < nFrames; i++) {
-            for (int k = 0; k < NUM_MFCC; k++) {
-                double sum = 0;
-                for (int n = 0; n < NUM_MELS; n++) {
-                    sum += melSpec[i][n] * Math.cos(Math.PI * k * (2 * n + 1) / (2.0 * NUM_MELS));
-                }
-                mfcc[i][k] = (float) sum;
+        for (int k = 0; k < NUM_MFCC; k++) {
+            int row = k * NUM_MELS;
+            double sum = 0;
+            for (int n = 0; n < NUM_MELS; n++) {
+                sum += mel[n] * DCT_BASIS[row + n];
             }
+            mfccOut[outOffset + k] = (float) sum;
         }
-        return mfcc;
     }
 
-    // FFT based on Cooley-Tukey (in-place, radix-2 DIT)
-    private static void fft(double[] real, double[] imag) {
-        int n = real.length;
-        if (Integer.bitCount(n) != 1) throw new IllegalArgumentException("FFT size must be power of 2");
-
-        int logN = Integer.numberOfTrailingZeros(n);
-        for (int i = 0; i < n; i++) {
-            int j = Integer.reverse(i) >>> (32 - logN);
-            if (j > i) {
-                double tempReal = real[i], tempImag = imag[i];
-                real[i] = real[j]; imag[i] = imag[j];
-                real[j] = tempReal; imag[j] = tempImag;
-            }
+    // Single-precision version of logMelToMfcc(double[], float[], int)
+    static void logMelToMfcc(float[] mel, float[] mfccOut, int outOffset) {
+        for (int n = 0; n < NUM_MELS; n++) {
+            mel[n] = (float) Math.log(mel[n]);
         }
 
-        for (int s = 1; s <= logN; s++) {
-            int m = 1 << s;
-            double theta = -2 * Math.PI / m;
-            double wReal = 1, wImag = 0;
-            double uReal = Math.cos(theta), uImag = Math.sin(theta);
-
-            for (int j = 0; j < m / 2; j++) {
-                for (int k = j; k < n; k += m) {
-                    int t = k + m / 2;
-                    double tReal = wReal * real[t] - wImag * imag[t];
-                    double tImag = wReal * imag[t] + wImag * real[t];
-                    real[t] = real[k] - tReal;
-                    imag[t] = imag[k] - tImag;
-                    real[k] += tReal;
-                    imag[k] += tImag;
-                }
-                double tmpReal = wReal * uReal - wImag * uImag;
-                wImag = wReal * uImag + wImag * uReal;
-                wReal = tmpReal;
+        for (int k = 0; k < NUM_MFCC; k++) {
+            int row = k * NUM_MELS;
+            float sum = 0f;
+            for (int n = 0; n < NUM_MELS; n++) {
+                sum += mel[n] * DCT_BASIS[row + n];
             }
+            mfccOut[outOffset + k] = sum;
         }
     }
 
-    private static double hzToMel(double hz) {
-        return 2595 * Math.log10(1 + hz / 700.0);
-    }
-
-    private static double melToHz(double mel) {
-        return 700 * (Math.pow(10, mel / 2595.0) - 1);
+    // Row-major [NUM_MFCC][NUM_MELS] DCT-II basis: cos(pi * k * (2n + 1) / (2 * NUM_MELS))
+    private static float[] buildDctBasis() {
+        float[] basis = new float[NUM_MFCC * NUM_MELS];
+        for (int k = 0; k < NUM_MFCC; k++) {
+            for (int n = 0; n < NUM_MELS; n++) {
+                basis[k * NUM_MELS + n] = (float) Math.cos(Math.PI * k * (2 * n + 1) / (2.0 * NUM_MELS));
+            }
+        }
+        return basis;
     }
 }
-
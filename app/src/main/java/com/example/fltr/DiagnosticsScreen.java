@@ -1,14 +1,11 @@
 package com.example.fltr;
 
 import android.Manifest;
-import android.content.ContentValues;
+import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.media.AudioRecord;
-import android.net.Uri;
 import android.os.Bundle;
-import android.os.Environment;
-import android.provider.MediaStore;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
@@ -19,13 +16,6 @@ import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,6 +24,8 @@ public class DiagnosticsScreen extends AppCompatActivity {
     private static final int SAMPLE_RATE = 44100;
     private static final int RECORDING_LENGTH = SAMPLE_RATE * 3; // 3 seconds
     private static final int REQUEST_RECORD_AUDIO = 13;
+    private static final String PREFS = "model_runtime";
+    private static final String KEY_CAPTURE_SESSION = "capture_session_enabled";
 
     private boolean isRecording = false;
     private short[] audioBuffer = new short[RECORDING_LENGTH];
@@ -50,10 +42,11 @@ public class DiagnosticsScreen extends AppCompatActivity {
 
     private boolean simpleMode = true; // SIMPLE MODE is default
     private float[][] paddedMfcc;
-    private float[][] originalMfcc;
 
-    private CustomMFCC.InferenceHelper inferenceHelper;  // Using CustomMFCC's InferenceHelper
+    private ModelRuntime modelRuntime;  // Shared, preloaded InferenceHelper
     private AudioEngine audioEngine = new AudioEngine();
+    private MfccDump mfccDump;
+    private boolean useCaptureSession; // long-press Record to compare with per-utterance capture; persisted
 
     // UI mode toggle
     private Switch simpleModeToggle;
@@ -77,6 +70,9 @@ public class DiagnosticsScreen extends AppCompatActivity {
         Button calibrateBtn = findViewById(R.id.calibrateBtn);
         saveButton = findViewById(R.id.saveBtn);
 
+        // Capture mode survives restarts, so the panel always says which one is measured
+        useCaptureSession = getSharedPreferences(PREFS, Context.MODE_PRIVATE).getBoolean(KEY_CAPTURE_SESSION, true);
+        rtfView.setText(captureModeText());
 
 
         // Chart / Learn Baybayin button
@@ -89,20 +85,34 @@ public class DiagnosticsScreen extends AppCompatActivity {
             startActivity(new Intent(DiagnosticsScreen.this, ScreenMain.class));
         });
 
+        // Long press on Diagnostics cycles the model precision; the model is loaded once per process
+        diagnosticsBtn.setOnLongClickListener(v -> {
+            ModelVariant variant = ModelVariant.selected(this).next();
+            ModelVariant.setSelected(this, variant);
+            resultView.setText("Model variant: " + variant + (variant.isBundled(this)
+                    ? " (loads on next app start)"
+                    : " not bundled; FLOAT32 will load"));
+            return true;
+        });
+
         // Save recording button
         saveButton.setOnClickListener(view -> saveLastRecordingAsWav());
         saveButton.setEnabled(false); // disabled until a recording exists
 
+        // Long press on Save toggles archiving every utterance for replay
+        saveButton.setOnLongClickListener(view -> {
+            boolean enable = !SessionArchive.isEnabled(this);
+            SessionArchive.setEnabled(this, enable);
+            resultView.setText("Session archive: " + (enable ? "on" : "off"));
+            return true;
+        });
+
         // Request microphone permission
         ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.RECORD_AUDIO}, REQUEST_RECORD_AUDIO);
 
-        // Initialize inference helper
-        try {
-            inferenceHelper = new CustomMFCC.InferenceHelper(this);
-        } catch (IOException e) {
-            e.printStackTrace();
-            Log.e("ScreenMain", "Failed to init InferenceHelper: " + e.getMessage());
-        }
+        // Model is loaded once per process by FltrApplication
+        modelRuntime = ModelRuntime.get(this);
+        mfccDump = MfccDump.get(this);
 
         // Record button behavior
         recordButton.setOnClickListener(view -> {
@@ -115,6 +125,32 @@ public class DiagnosticsScreen extends AppCompatActivity {
             }
         });
 
+        // Long press switches between the persistent capture session and one AudioRecord per tap
+        recordButton.setOnLongClickListener(view -> {
+            if (isRecording) return false;
+            useCaptureSession = !useCaptureSession;
+            getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                    .edit()
+                    .putBoolean(KEY_CAPTURE_SESSION, useCaptureSession)
+                    .apply();
+            if (useCaptureSession) {
+                audioEngine.startSession();
+            } else {
+                audioEngine.stopSession();
+            }
+            resultView.setText(captureModeText());
+            rtfView.setText(captureModeText());
+            return true;
+        });
+
+        // Long press on Calibrate toggles the binary MFCC dump (off by default)
+        calibrateBtn.setOnLongClickListener(v -> {
+            boolean enable = !mfccDump.isEnabled();
+            mfccDump.setEnabled(this, enable);
+            resultView.setText("MFCC dump: " + (enable ? "on, " + mfccDump.getDirectory() : "off"));
+            return true;
+        });
+
         // Calibrate button
         calibrateBtn.setOnClickListener(v -> {
 
@@ -134,27 +170,43 @@ public class DiagnosticsScreen extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Keep the microphone open while visible so taps don't pay AudioRecord start-up
+        if (useCaptureSession) audioEngine.startSession();
+    }
+
+    @Override
+    protected void onPause() {
+        audioEngine.stopSession();
+        super.onPause();
+    }
+
+    private String captureModeText() {
+        return "Capture: " + (useCaptureSession ? "persistent session" : "per-utterance AudioRecord");
+    }
+
     private void startRecording() {
         isRecording = true;
         audioEngine.startRecording(new AudioEngine.RecordingCallback() {
             @Override
-            public void onRecordingFinished(short[] audioData) {
+            public void onRecordingFinished(CustomMFCC.MfccResult mfccResult) {
                 long startTime = System.currentTimeMillis();
 
-                // Extract MFCCs
-                CustomMFCC.MfccResult mfccResult = CustomMFCC.extractMFCCs(audioData);
+                // MFCCs were extracted by AudioEngine while recording
 
-                // Save MFCC for inspection (non-blocking-ish)
-                saveMFCCtoFile(mfccResult.paddedMfcc, "mfcc_input_before_inference.txt");
+                // Debug dump of the model input; queued to a background writer, no-op unless enabled
+                mfccDump.submit(mfccResult);
 
-                // Store for visualization
-                paddedMfcc = mfccResult.paddedMfcc;
-                originalMfcc = mfccResult.originalMfcc; // if your MfccResult contains it
+                // Store for visualization; a copy, since the engine reuses its frame storage
+                paddedMfcc = (mfccView != null) ? mfccResult.paddedMfcc() : null;
 
-                // Run inference
+                // Run inference (waits here if the model is still warming up)
+                CustomMFCC.InferenceHelper inferenceHelper = modelRuntime.getHelper();
                 CustomMFCC.InferenceResult inferenceResult = null;
                 if (inferenceHelper != null) {
-                    inferenceResult = inferenceHelper.runInference(mfccResult.paddedMfcc);
+                    inferenceResult = inferenceHelper.runInference(mfccResult);
                 } else {
                     Log.e("ScreenMain", "InferenceHelper is null; skipping inference");
                 }
@@ -162,12 +214,13 @@ public class DiagnosticsScreen extends AppCompatActivity {
                 String predictedLabel = (inferenceResult != null) ? inferenceResult.label : "unknown";
                 float confidence = (inferenceResult != null) ? inferenceResult.confidence : 0f;
                 float processingTimeSec = (inferenceResult != null) ? inferenceResult.processingTimeSec : 0f;
+                boolean matched = inferenceResult != null && inferenceResult.matched;
 
-                // Translate to Baybayin
-                String baybayinOutput = BaybayinTranslator.translateToBaybayin(predictedLabel);
+                // Baybayin from the helper's per-label table; low-confidence predictions are not translated
+                String baybayinOutput = matched ? inferenceHelper.baybayin[inferenceResult.bestIndex] : "No match";
 
                 // Audio durations
-                float audioDurationSec = (float) audioData.length / AudioEngine.SAMPLE_RATE;
+                float audioDurationSec = (float) mfccResult.sampleCount / AudioEngine.SAMPLE_RATE;
                 float frameDurationSec = (float) mfccResult.originalFrameCount * CustomMFCC.HOP_SIZE / AudioEngine.SAMPLE_RATE;
 
                 // Compute RTF safely
@@ -176,23 +229,48 @@ public class DiagnosticsScreen extends AppCompatActivity {
                 final float finalRtf = rtf;
                 final float finalAudioDurationSec = audioDurationSec;
                 final float finalProcessingTimeSec = processingTimeSec;
+                final String backend = (inferenceHelper != null) ? inferenceHelper.variant + "/" + inferenceHelper.backend : "none";
+
+                // Kept for offline replay when the session archive is on; written in the background
+                SessionArchive.appendIfEnabled(DiagnosticsScreen.this, audioEngine, mfccResult, inferenceResult,
+                        System.currentTimeMillis() - startTime);
 
                 // Syllable segmentation
-                final String syllables = segmentSyllables(predictedLabel);
+                final String syllables = matched ? inferenceHelper.syllables[inferenceResult.bestIndex] : "";
+
+                // Runner-ups after the top prediction
+                StringBuilder runnerUpText = new StringBuilder();
+                if (inferenceResult != null) {
+                    for (int i = 1; i < inferenceResult.topCount; i++) {
+                        runnerUpText.append("\n").append(i + 1).append(". ").append(inferenceResult.topLabels[i])
+                                .append(" (").append(String.format("%.3f", inferenceResult.topScores[i])).append(")");
+                    }
+                }
+                final String runnerUps = runnerUpText.toString();
 
                 runOnUiThread(() -> {
                     // Update UI
                     rtfView.setText(
-                            "Audio Duration: " + String.format("%.6f", finalAudioDurationSec) +
+                            captureModeText() +
+                                    "\nAudio Duration: " + String.format("%.6f", finalAudioDurationSec) +
                                     "\nProcessing Time: " + String.format("%.6f", finalProcessingTimeSec) +
-                                    "\nRTF: " + String.format("%.6f", finalRtf)
+                                    "\nRTF: " + String.format("%.6f", finalRtf) +
+                                    "\nModel Load (" + backend + "): " + String.format("%.1f", modelRuntime.getColdStartMs()) + " ms" +
+                                    " | First: " + String.format("%.1f", modelRuntime.getFirstInferenceMs()) + " ms" +
+                                    " | Steady: " + String.format("%.1f", modelRuntime.getSteadyStateMs()) + " ms" +
+                                    "\nStart Latency (" + (audioEngine.lastStartUsedSession() ? "session" : "per-utterance") + "): " +
+                                    String.format("%.1f", audioEngine.getLastStartLatencyMs()) + " ms" +
+                                    "\nNoise Floor: " + String.format("%.0f", audioEngine.getNoiseFloor()) +
+                                    " | VAD Threshold: " + String.format("%.0f", audioEngine.getVadThreshold()) +
+                                    " | Changes: " + audioEngine.getThresholdChanges()
                     );
 
                     if (paddedMfcc != null && mfccView != null) {
                         mfccView.setMfccData(paddedMfcc, AudioEngine.SAMPLE_RATE, CustomMFCC.HOP_SIZE);
                     }
 
-                    resultView.setText("Prediction: " + predictedLabel + "\nConfidence: " + confidence);
+                    resultView.setText("Prediction: " + predictedLabel + (matched ? "" : " (rejected)")
+                            + "\nConfidence: " + confidence + runnerUps);
                     baybayinView.setText(baybayinOutput);
 
                     if (syllableView != null) {
@@ -221,139 +299,27 @@ public class DiagnosticsScreen extends AppCompatActivity {
     }
 
     private void saveLastRecordingAsWav() {
-        byte[] pcmBytes = audioEngine.getLastTrimmedPcm();
-        if (pcmBytes == null) {
-            resultView.setText("No recording available.");
-            return;
-        }
-
-        String fileName = "recording_" + System.currentTimeMillis() + ".wav";
-
-        ContentValues values = new ContentValues();
-        values.put(MediaStore.Downloads.DISPLAY_NAME, fileName);
-        values.put(MediaStore.Downloads.MIME_TYPE, "audio/wav");
-        values.put(MediaStore.Downloads.IS_PENDING, 1);
-
-        Uri downloads = MediaStore.Downloads.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY);
-        Uri fileUri = getContentResolver().insert(downloads, values);
-
-        if (fileUri == null) {
-            resultView.setText("Failed to create file.");
-            return;
-        }
-
-        try (OutputStream out = getContentResolver().openOutputStream(fileUri)) {
-            if (out == null) throw new IOException("OutputStream is null.");
-
-            writeWavHeader(out, pcmBytes.length, AudioEngine.SAMPLE_RATE, 1, 16);
-            out.write(pcmBytes);
-
-            values.clear();
-            values.put(MediaStore.Downloads.IS_PENDING, 0);
-            getContentResolver().update(fileUri, values, null, null);
-
-            runOnUiThread(() -> resultView.setText("Saved to Downloads as " + fileName));
-        } catch (Exception e) {
-            e.printStackTrace();
-            runOnUiThread(() -> resultView.setText("Failed to save WAV: " + e.getMessage()));
-        }
-    }
-
-    private void writeWavHeader(OutputStream out, int audioLen, int sampleRate, int channels, int bitsPerSample) throws IOException {
-        int byteRate = sampleRate * channels * bitsPerSample / 8;
-        int dataLen = 36 + audioLen;
-
-        out.write("RIFF".getBytes());
-        out.write(intToLE(dataLen));
-        out.write("WAVE".getBytes());
-        out.write("fmt ".getBytes());
-        out.write(intToLE(16)); // Subchunk1Size
-        out.write(shortToLE((short) 1)); // PCM
-        out.write(shortToLE((short) channels));
-        out.write(intToLE(sampleRate));
-        out.write(intToLE(byteRate));
-        out.write(shortToLE((short) (channels * bitsPerSample / 8)));
-        out.write(shortToLE((short) bitsPerSample));
-        out.write("data".getBytes());
-        out.write(intToLE(audioLen));
-    }
+        // Encoding and the MediaStore calls run on WavSaver's I/O thread
+        saveButton.setEnabled(false);
+        resultView.setText("Saving...");
 
-    private byte[] intToLE(int val) {
-        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(val).array();
-    }
-
-    private byte[] shortToLE(short val) {
-        return ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN).putShort(val).array();
-    }
-
-    private void saveMFCCtoFile(float[][] mfcc, String filename) {
-        if (mfcc == null) return;
-
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < mfcc.length; i++) {
-            for (int j = 0; j < mfcc[i].length; j++) {
-                sb.append(mfcc[i][j]);
-                if (j < mfcc[i].length - 1) sb.append(" ");
-            }
-            sb.append("\n");
-        }
-
-        String mfccFile = "mfcc_from_app.txt";
-        File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
-        File file = new File(downloadsDir, mfccFile);
-
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            fos.write(sb.toString().getBytes(StandardCharsets.UTF_8));
-            Log.d("ScreenMain", "MFCC saved to file: " + file.getAbsolutePath());
-        } catch (IOException e) {
-            Log.e("ScreenMain", "Error saving MFCC to file", e);
-        }
-    }
-
-    /**
-     * Basic heuristic syllabifier for UI display. Works with romanized Filipino words.
-     * Uses simple greedy matching similar to BaybayinSyllableHelper logic.
-     */
-    private String segmentSyllables(String word) {
-        if (word == null) return "";
-        String w = word.toLowerCase().replaceAll("[^a-z]", "");
-
-        StringBuilder out = new StringBuilder();
-        int i = 0;
-
-        while (i < w.length()) {
-            String chunk = null;
-
-            // Try 3-letter chunk
-            if (i + 2 < w.length()) {
-                String s3 = w.substring(i, i + 3);
-                if (BaybayinTranslator.baybayinMap.containsKey(s3)) {
-                    chunk = s3;
-                    i += 3;
-                }
-            }
-
-            // Try 2-letter chunk
-            if (chunk == null && i + 1 < w.length()) {
-                String s2 = w.substring(i, i + 2);
-                if (BaybayinTranslator.baybayinMap.containsKey(s2)) {
-                    chunk = s2;
-                    i += 2;
-                }
+        WavSaver.saveLastRecording(this, audioEngine, new WavSaver.Callback() {
+            @Override
+            public void onSaved(String fileName) {
+                runOnUiThread(() -> {
+                    resultView.setText("Saved to Downloads as " + fileName);
+                    saveButton.setEnabled(true);
+                });
             }
 
-            // Fallback to single letter (vowel or consonant)
-            if (chunk == null) {
-                String s1 = w.substring(i, i + 1);
-                chunk = s1;  // even if not in map, follow translator fallback
-                i += 1;
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() -> {
+                    resultView.setText("Failed to save WAV: " + e.getMessage());
+                    saveButton.setEnabled(true);
+                });
             }
-
-            if (out.length() > 0) out.append(" · ");
-            out.append(chunk);
-        }
-
-        return out.toString();
+        });
     }
 
 }
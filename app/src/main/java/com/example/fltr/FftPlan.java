@@ -0,0 +1,213 @@
+package com.example.fltr;
+
+/**
+ * Precomputed tables for a fixed-size radix-2 FFT: the bit-reversal permutation, the
+ * cosine/sine twiddle factors and the Hamming window applied to each frame.
+ * Built once and shared, so no transcendental calls are left in the per-frame path.
+ */
+public class FftPlan {
+    final int size;
+    final int[] bitReverse;
+    final double[] cos;     // cos(2*pi*k/size), k < size/2
+    final double[] sin;     // -sin(2*pi*k/size), k < size/2
+    final double[] window;  // Hamming window of length size
+
+    // Single-precision copies for the float32 pipeline
+    final float[] cosF;
+    final float[] sinF;
+    final float[] windowF;
+
+    // size/2 complex plan used by the real-input transform
+    private final FftPlan half;
+
+    public FftPlan(int size) {
+        this(size, true);
+    }
+
+    private FftPlan(int size, boolean withHalf) {
+        if (Integer.bitCount(size) != 1) throw new IllegalArgumentException("FFT size must be power of 2");
+        this.size = size;
+
+        int logN = Integer.numberOfTrailingZeros(size);
+        bitReverse = new int[size];
+        for (int i = 0; i < size; i++) {
+            bitReverse[i] = Integer.reverse(i) >>> (32 - logN);
+        }
+
+        cos = new double[size / 2];
+        sin = new double[size / 2];
+        for (int k = 0; k < size / 2; k++) {
+            double theta = -2 * Math.PI * k / size;
+            cos[k] = Math.cos(theta);
+            sin[k] = Math.sin(theta);
+        }
+
+        window = new double[size];
+        for (int j = 0; j < size; j++) {
+            window[j] = 0.54 - 0.46 * Math.cos(2 * Math.PI * j / (size - 1));
+        }
+
+        cosF = new float[size / 2];
+        sinF = new float[size / 2];
+        for (int k = 0; k < size / 2; k++) {
+            cosF[k] = (float) cos[k];
+            sinF[k] = (float) sin[k];
+        }
+        windowF = new float[size];
+        for (int j = 0; j < size; j++) {
+            windowF[j] = (float) window[j];
+        }
+
+        half = (withHalf && size >= 4) ? new FftPlan(size / 2, false) : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // In-place radix-2 DIT Cooley-Tukey over the precomputed tables
+    public void transform(double[] real, double[] imag) {
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            int j = bitReverse[i];
+            if (j > i) {
+                double tempReal = real[i], tempImag = imag[i];
+                real[i] = real[j]; imag[i] = imag[j];
+                real[j] = tempReal; imag[j] = tempImag;
+            }
+        }
+
+        for (int m = 2; m <= n; m <<= 1) {
+            int half = m / 2;
+            int step = n / m;
+            for (int j = 0; j < half; j++) {
+                double wReal = cos[j * step];
+                double wImag = sin[j * step];
+                for (int k = j; k < n; k += m) {
+                    int t = k + half;
+                    double tReal = wReal * real[t] - wImag * imag[t];
+                    double tImag = wReal * imag[t] + wImag * real[t];
+                    real[t] = real[k] - tReal;
+                    imag[t] = imag[k] - tImag;
+                    real[k] += tReal;
+                    imag[k] += tImag;
+                }
+            }
+        }
+    }
+
+    // Single-precision version of transform(double[], double[])
+    public void transform(float[] real, float[] imag) {
+        int n = size;
+        for (int i = 0; i < n; i++) {
+            int j = bitReverse[i];
+            if (j > i) {
+                float tempReal = real[i], tempImag = imag[i];
+                real[i] = real[j]; imag[i] = imag[j];
+                real[j] = tempReal; imag[j] = tempImag;
+            }
+        }
+
+        for (int m = 2; m <= n; m <<= 1) {
+            int half = m / 2;
+            int step = n / m;
+            for (int j = 0; j < half; j++) {
+                float wReal = cosF[j * step];
+                float wImag = sinF[j * step];
+                for (int k = j; k < n; k += m) {
+                    int t = k + half;
+                    float tReal = wReal * real[t] - wImag * imag[t];
+                    float tImag = wReal * imag[t] + wImag * real[t];
+                    real[t] = real[k] - tReal;
+                    imag[t] = imag[k] - tImag;
+                    real[k] += tReal;
+                    imag[k] += tImag;
+                }
+            }
+        }
+    }
+
+    /**
+     * Power spectrum (bins 0..size/2, scaled by 1/size) of a real frame using a size/2-point
+     * complex FFT: even samples go in the real part, odd samples in the imaginary part, and
+     * the two interleaved spectra are separated afterwards. Half the butterflies and half
+     * the scratch of running the full complex transform on a zero imaginary part.
+     * @param re scratch of at least size/2
+     * @param im scratch of at least size/2
+     * @param power output of at least size/2 + 1
+     */
+    public void realPowerSpectrum(float[] frame, double[] re, double[] im, double[] power) {
+        int m = size / 2;
+        for (int j = 0; j < m; j++) {
+            re[j] = frame[2 * j];
+            im[j] = frame[2 * j + 1];
+        }
+        half.transform(re, im);
+
+        // DC and Nyquist come straight out of Z[0]
+        double dc = re[0] + im[0];
+        double nyquist = re[0] - im[0];
+        power[0] = dc * dc / size;
+        power[m] = nyquist * nyquist / size;
+
+        for (int k = 1; k < m; k++) {
+            double a = re[k], b = im[k];
+            double c = re[m - k], d = im[m - k];
+
+            // Even spectrum E = (Z[k] + conj(Z[m-k])) / 2, odd spectrum O = (Z[k] - conj(Z[m-k])) / 2i
+            double eReal = (a + c) * 0.5, eImag = (b - d) * 0.5;
+            double oReal = (b + d) * 0.5, oImag = (c - a) * 0.5;
+
+            // X[k] = E + W^k * O
+            double wReal = cos[k], wImag = sin[k];
+            double xReal = eReal + wReal * oReal - wImag * oImag;
+            double xImag = eImag + wReal * oImag + wImag * oReal;
+            power[k] = (xReal * xReal + xImag * xImag) / size;
+        }
+    }
+
+    /**
+     * Same output as realPowerSpectrum() through the full-size complex transform.
+     * @param re scratch of at least size
+     * @param im scratch of at least size
+     */
+    public void complexPowerSpectrum(float[] frame, double[] re, double[] im, double[] power) {
+        for (int j = 0; j < size; j++) {
+            re[j] = frame[j];
+            im[j] = 0.0;
+        }
+        transform(re, im);
+
+        for (int k = 0; k < size / 2 + 1; k++) {
+            power[k] = (re[k] * re[k] + im[k] * im[k]) / size;
+        }
+    }
+
+    // Single-precision version of realPowerSpectrum(float[], double[], double[], double[])
+    public void realPowerSpectrum(float[] frame, float[] re, float[] im, float[] power) {
+        int m = size / 2;
+        for (int j = 0; j < m; j++) {
+            re[j] = frame[2 * j];
+            im[j] = frame[2 * j + 1];
+        }
+        half.transform(re, im);
+
+        float dc = re[0] + im[0];
+        float nyquist = re[0] - im[0];
+        power[0] = dc * dc / size;
+        power[m] = nyquist * nyquist / size;
+
+        for (int k = 1; k < m; k++) {
+            float a = re[k], b = im[k];
+            float c = re[m - k], d = im[m - k];
+
+            float eReal = (a + c) * 0.5f, eImag = (b - d) * 0.5f;
+            float oReal = (b + d) * 0.5f, oImag = (c - a) * 0.5f;
+
+            float wReal = cosF[k], wImag = sinF[k];
+            float xReal = eReal + wReal * oReal - wImag * oImag;
+            float xImag = eImag + wReal * oImag + wImag * oReal;
+            power[k] = (xReal * xReal + xImag * xImag) / size;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.fltr;
+
+import android.app.Application;
+
+public class FltrApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Start loading and warming up the model while the launcher screen is shown
+        ModelRuntime.get(this);
+    }
+}
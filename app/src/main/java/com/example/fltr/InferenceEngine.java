@@ -1,52 +1,41 @@
 package com.example.fltr;
 
 import android.content.Context;
-import org.tensorflow.lite.Interpreter;
-import org.tensorflow.lite.support.common.FileUtil;
-
-import java.io.IOException;
-import java.nio.MappedByteBuffer;
-import java.util.List;
 
 public class InferenceEngine {
+    public static final String NO_MATCH = "no match";
 
-    private final Interpreter tflite;
-    private final List<String> labels;
+    private final CustomMFCC.InferenceHelper helper;
 
     public InferenceEngine(Context context) {
-        try {
-            MappedByteBuffer model = FileUtil.loadMappedFile(context, "mixed_augmented.tflite"); // ✅ load model from assets
-            tflite = new Interpreter(model);
-            labels = FileUtil.loadLabels(context, "labels.txt"); // ✅ load labels from assets
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load model or labels", e);
+        // Shares the app-wide interpreter instead of loading another copy of the model
+        helper = ModelRuntime.get(context).getHelper();
+        if (helper == null) {
+            throw new RuntimeException("Failed to load model or labels");
         }
     }
 
+    // Best label, or NO_MATCH when the confidence is below the rejection threshold
     public String predict(float[][][] modelInput) {
+        CustomMFCC.InferenceResult result = classify(modelInput);
+        return result.matched ? getLabel(result.bestIndex) : NO_MATCH;
+    }
+
+    // Full result including the top-K runner-ups
+    public CustomMFCC.InferenceResult classify(float[][][] modelInput) {
         if (modelInput == null || modelInput.length == 0 || modelInput[0].length == 0 || modelInput[0][0].length == 0) {
             throw new IllegalArgumentException("Invalid input shape for model. Received: "
                     + (modelInput == null ? "null" : modelInput.length + "x" + modelInput[0].length + "x" + modelInput[0][0].length));
         }
 
-        float[][] output = new float[1][labels.size()];
-        tflite.run(modelInput, output);
-
-        int bestIndex = 0;
-        float max = output[0][0];
-        for (int i = 1; i < output[0].length; i++) {
-            if (output[0][i] > max) {
-                max = output[0][i];
-                bestIndex = i;
-            }
-        }
+        CustomMFCC.InferenceResult result = helper.runInference(modelInput[0]);
 
-        android.util.Log.d("InferenceEngine", "Predicted class index: " + bestIndex);
-        return getLabel(bestIndex);
+        android.util.Log.d("InferenceEngine", "Predicted class index: " + result.bestIndex);
+        return result;
     }
 
 
     private String getLabel(int index) {
-        return (index >= 0 && index < labels.size()) ? labels.get(index) : "unknown";
+        return (index >= 0 && index < helper.labels.size()) ? helper.labels.get(index) : "unknown";
     }
 }
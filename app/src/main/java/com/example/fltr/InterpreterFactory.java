@@ -0,0 +1,266 @@
+package com.example.fltr;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import org.tensorflow.lite.Delegate;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.gpu.CompatibilityList;
+import org.tensorflow.lite.gpu.GpuDelegate;
+import org.tensorflow.lite.nnapi.NnApiDelegate;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds TFLite interpreters for a chosen backend (plain CPU, XNNPACK, NNAPI or GPU).
+ * A backend that fails to load falls back to CPU. On first launch the auto-selectable
+ * backends are timed on a synthetic input and the fastest is remembered in SharedPreferences.
+ *
+ * GPU is never auto-selected: a GPU delegate must run on the thread that created it, while
+ * the shared helper is built on the loader thread and run from capture, speculative and
+ * replay threads. Request it explicitly only for an interpreter confined to one thread.
+ *
+ * Only preferredBackend() needs a Context; create() and benchmark() run anywhere the
+ * TFLite runtime does, so the CPU and XNNPACK variants can be exercised without a device.
+ */
+public class InterpreterFactory {
+    private static final String TAG = "InterpreterFactory";
+    private static final String PREFS = "model_runtime";
+    private static final String KEY_BACKEND = "backend";
+    private static final int BENCHMARK_WARMUP_RUNS = 2;
+    private static final int BENCHMARK_RUNS = 10;
+
+    public enum Backend { CPU, XNNPACK, NNAPI, GPU }
+
+    // Backends safe to call from any thread, and so candidates for the shared interpreter
+    static final Backend[] AUTO_BACKENDS = { Backend.CPU, Backend.XNNPACK, Backend.NNAPI };
+
+    // Times a set of backends; benchmark() on the device, a fake in tests
+    interface BackendTimer {
+        Map<Backend, Float> time(Backend[] backends);
+    }
+
+    // Interpreter plus the delegate it owns, closed together
+    public static class Created implements AutoCloseable {
+        public final Interpreter interpreter;
+        public final Backend backend;
+        private final Delegate delegate;
+
+        Created(Interpreter interpreter, Backend backend, Delegate delegate) {
+            this.interpreter = interpreter;
+            this.backend = backend;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void close() {
+            interpreter.close();
+            if (delegate != null) {
+                try {
+                    delegate.close();
+                } catch (Exception e) {
+                    Log.w(TAG, "Failed to close delegate", e);
+                }
+            }
+        }
+    }
+
+    public static int defaultThreadCount() {
+        return Math.max(1, Math.min(4, bigCoreCount()));
+    }
+
+    /**
+     * Number of "big" cores: those whose max frequency is above the slowest cluster's.
+     * Falls back to all available processors on symmetric CPUs or when cpufreq isn't readable.
+     */
+    static int bigCoreCount() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        long[] maxFreq = new long[cpus];
+        long slowest = Long.MAX_VALUE;
+
+        for (int i = 0; i < cpus; i++) {
+            File file = new File("/sys/devices/system/cpu/cpu" + i + "/cpufreq/cpuinfo_max_freq");
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                maxFreq[i] = Long.parseLong(reader.readLine().trim());
+            } catch (IOException | NumberFormatException | NullPointerException e) {
+                return cpus;
+            }
+            slowest = Math.min(slowest, maxFreq[i]);
+        }
+
+        int big = 0;
+        for (long freq : maxFreq) {
+            if (freq > slowest) big++;
+        }
+        return (big > 0) ? big : cpus;
+    }
+
+    /**
+     * @return an interpreter on the requested backend, or on CPU if that backend can't be loaded
+     */
+    public static Created create(ByteBuffer model, Backend backend, int numThreads) {
+        try {
+            return createOrThrow(model, backend, numThreads);
+        } catch (Exception | LinkageError e) {
+            Log.w(TAG, backend + " backend unavailable, falling back to CPU: " + e.getMessage());
+            return createOrThrow(model, Backend.CPU, numThreads);
+        }
+    }
+
+    private static Created createOrThrow(ByteBuffer model, Backend backend, int numThreads) {
+        Interpreter.Options options = new Interpreter.Options().setNumThreads(numThreads);
+        Delegate delegate = null;
+
+        switch (backend) {
+            case CPU:
+                options.setUseXNNPACK(false);
+                break;
+            case XNNPACK:
+                options.setUseXNNPACK(true);
+                break;
+            case NNAPI:
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O_MR1) {
+                    throw new IllegalStateException("NNAPI delegate needs Android 8.1+");
+                }
+                delegate = new NnApiDelegate();
+                break;
+            case GPU:
+                CompatibilityList compatibilityList = new CompatibilityList();
+                if (!compatibilityList.isDelegateSupportedOnThisDevice()) {
+                    throw new IllegalStateException("GPU delegate not supported on this device");
+                }
+                delegate = new GpuDelegate(compatibilityList.getBestOptionsForThisDevice());
+                break;
+        }
+
+        if (delegate != null) options.addDelegate(delegate);
+
+        try {
+            return new Created(new Interpreter(model, options), backend, delegate);
+        } catch (RuntimeException e) {
+            if (delegate != null) {
+                try {
+                    delegate.close();
+                } catch (Exception ignored) {
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Average inference time in ms per backend on a synthetic input of the model's input shape.
+     * Backends that fail to load are left out of the result.
+     */
+    public static Map<Backend, Float> benchmark(ByteBuffer model, Backend[] backends, int numThreads) {
+        Map<Backend, Float> timings = new EnumMap<>(Backend.class);
+
+        for (Backend backend : backends) {
+            Created created;
+            try {
+                created = createOrThrow(model, backend, numThreads);
+            } catch (Exception | LinkageError e) {
+                Log.w(TAG, "Skipping " + backend + ": " + e.getMessage());
+                continue;
+            }
+
+            try {
+                Interpreter interpreter = created.interpreter;
+                ByteBuffer input = syntheticInput(interpreter.getInputTensor(0).numBytes());
+                ByteBuffer output = ByteBuffer.allocateDirect(interpreter.getOutputTensor(0).numBytes())
+                        .order(ByteOrder.nativeOrder());
+
+                for (int i = 0; i < BENCHMARK_WARMUP_RUNS; i++) {
+                    input.rewind();
+                    output.rewind();
+                    interpreter.run(input, output);
+                }
+
+                long start = System.nanoTime();
+                for (int i = 0; i < BENCHMARK_RUNS; i++) {
+                    input.rewind();
+                    output.rewind();
+                    interpreter.run(input, output);
+                }
+                float ms = (System.nanoTime() - start) / 1e6f / BENCHMARK_RUNS;
+                timings.put(backend, ms);
+                Log.d(TAG, backend + ": " + ms + " ms/inference");
+            } catch (RuntimeException e) {
+                Log.w(TAG, backend + " failed during benchmark: " + e.getMessage());
+            } finally {
+                created.close();
+            }
+        }
+        return timings;
+    }
+
+    /**
+     * The persisted fastest backend for this model, benchmarking every backend first if none
+     * is stored yet. Slow on first launch, so call it off the main thread.
+     * @param modelKey distinguishes models (e.g. precision variants) that may favour different backends
+     */
+    public static Backend preferredBackend(Context context, ByteBuffer model, String modelKey) {
+        return preferredBackend(context.getSharedPreferences(PREFS, Context.MODE_PRIVATE), modelKey,
+                backends -> benchmark(model, backends, defaultThreadCount()));
+    }
+
+    // Stored choice if it is still auto-selectable, otherwise the fastest timed backend (CPU if none ran)
+    static Backend preferredBackend(SharedPreferences prefs, String modelKey, BackendTimer timer) {
+        String stored = prefs.getString(KEY_BACKEND + "_" + modelKey, null);
+        if (stored != null) {
+            try {
+                Backend backend = Backend.valueOf(stored);
+                if (isAutoSelectable(backend)) return backend;
+                Log.w(TAG, "Re-selecting: stored backend " + stored + " is not thread-safe");
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Ignoring unknown stored backend " + stored);
+            }
+        }
+
+        Map<Backend, Float> timings = timer.time(AUTO_BACKENDS);
+        Backend fastest = Backend.CPU;
+        float best = Float.MAX_VALUE;
+        for (Map.Entry<Backend, Float> entry : timings.entrySet()) {
+            if (isAutoSelectable(entry.getKey()) && entry.getValue() < best) {
+                best = entry.getValue();
+                fastest = entry.getKey();
+            }
+        }
+
+        Log.d(TAG, "Selected backend " + fastest + " from " + timings);
+        prefs.edit().putString(KEY_BACKEND + "_" + modelKey, fastest.name()).apply();
+        return fastest;
+    }
+
+    private static boolean isAutoSelectable(Backend backend) {
+        for (Backend candidate : AUTO_BACKENDS) {
+            if (candidate == backend) return true;
+        }
+        return false;
+    }
+
+    // Forces a new benchmark on the next preferredBackend() call
+    public static void clearPreferredBackend(Context context, String modelKey) {
+        context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit().remove(KEY_BACKEND + "_" + modelKey).apply();
+    }
+
+    private static ByteBuffer syntheticInput(int numBytes) {
+        ByteBuffer input = ByteBuffer.allocateDirect(numBytes).order(ByteOrder.nativeOrder());
+        Random random = new Random(0);
+        while (input.remaining() >= 4) {
+            input.putFloat((float) random.nextGaussian() * 50f);
+        }
+        input.rewind();
+        return input;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.fltr;
+
+/**
+ * Triangular mel filterbank precomputed once. Each filter only covers the bins between its
+ * neighbours' centre frequencies, so it is stored as a start bin plus that run of weights
+ * and applied as a sparse dot product over the power spectrum.
+ */
+public class MelFilterBank {
+    final int numMels;
+    final int[] startBins;
+    final float[][] weights;
+
+    public MelFilterBank(int numMels, int fftSize, int sampleRate) {
+        this.numMels = numMels;
+
+        double[] melPoints = new double[numMels + 2];
+        double fMin = 0, fMax = sampleRate / 2;
+        double melMin = hzToMel(fMin);
+        double melMax = hzToMel(fMax);
+        for (int i = 0; i < melPoints.length; i++) {
+            melPoints[i] = melToHz(melMin + (melMax - melMin) * i / (numMels + 1));
+        }
+
+        int[] bin = new int[melPoints.length];
+        for (int i = 0; i < melPoints.length; i++) {
+            bin[i] = (int) Math.floor((fftSize + 1) * melPoints[i] / sampleRate);
+        }
+
+        startBins = new int[numMels];
+        weights = new float[numMels][];
+        for (int m = 1; m <= numMels; m++) {
+            float[] w = new float[bin[m + 1] - bin[m - 1]];
+            int idx = 0;
+            for (int k = bin[m - 1]; k < bin[m]; k++) {
+                w[idx++] = (float) ((k - bin[m - 1]) / (double) (bin[m] - bin[m - 1]));
+            }
+            for (int k = bin[m]; k < bin[m + 1]; k++) {
+                w[idx++] = (float) (1 - (k - bin[m]) / (double) (bin[m + 1] - bin[m]));
+            }
+            startBins[m - 1] = bin[m - 1];
+            weights[m - 1] = w;
+        }
+    }
+
+    public int numMels() {
+        return numMels;
+    }
+
+    // Mel energies of one power spectrum frame, floored at 1e-10 to keep the log finite
+    public void apply(double[] power, double[] melOut) {
+        for (int m = 0; m < numMels; m++) {
+            float[] w = weights[m];
+            int start = startBins[m];
+            double sum = 0;
+            for (int j = 0; j < w.length; j++) {
+                sum += w[j] * power[start + j];
+            }
+            melOut[m] = Math.max(sum, 1e-10);
+        }
+    }
+
+    // Single-precision version of apply(double[], double[])
+    public void apply(float[] power, float[] melOut) {
+        for (int m = 0; m < numMels; m++) {
+            float[] w = weights[m];
+            int start = startBins[m];
+            float sum = 0f;
+            for (int j = 0; j < w.length; j++) {
+                sum += w[j] * power[start + j];
+            }
+            melOut[m] = Math.max(sum, 1e-10f);
+        }
+    }
+
+    private static double hzToMel(double hz) {
+        return 2595 * Math.log10(1 + hz / 700.0);
+    }
+
+    private static double melToHz(double mel) {
+        return 700 * (Math.pow(10, mel / 2595.0) - 1);
+    }
+}
@@ -0,0 +1,363 @@
+package com.example.fltr;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Debug dump of the MFCC tensors fed to the model, off by default. submit() only copies the
+ * frames and queues them; a single background thread appends them to a binary file, so
+ * dumping adds nothing to the measured latency. When the queue is full the tensor is dropped
+ * rather than blocking the caller.
+ *
+ * File layout, all little-endian:
+ * <pre>
+ *   header: "FMFC", int32 version, int32 coefficients per frame
+ *   record: int64 timestamp (ms), int32 frames, int32 original frame count,
+ *           frames * coefficients float32
+ * </pre>
+ * Files are named mfcc_00000.bin, mfcc_00001.bin, ...; a new one is started every
+ * recordsPerFile records and only the newest maxFiles are kept. toText() and toNpy() convert
+ * a dump off the capture path, e.g. via main() on a pulled copy.
+ */
+public class MfccDump {
+    private static final String TAG = "MfccDump";
+    private static final String PREFS = "model_runtime";
+    private static final String KEY_ENABLED = "mfcc_dump_enabled";
+
+    public static final int MAGIC = 0x43464D46; // "FMFC" read as a little-endian int
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int RECORD_HEADER_BYTES = 16;
+
+    public static final int DEFAULT_RECORDS_PER_FILE = 100;
+    public static final int DEFAULT_MAX_FILES = 5;
+    private static final int QUEUE_CAPACITY = 8;
+
+    private static MfccDump instance;
+
+    private final File dir;
+    private final int recordsPerFile;
+    private final int maxFiles;
+    private final ThreadPoolExecutor writer;
+    private final AtomicInteger dropped = new AtomicInteger();
+    private volatile boolean enabled;
+
+    // Writer-thread state
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private int fileIndex;
+    private int recordsInFile;
+
+    public static synchronized MfccDump get(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new MfccDump(dumpDirectory(appContext), DEFAULT_RECORDS_PER_FILE, DEFAULT_MAX_FILES);
+            instance.enabled = appContext.getSharedPreferences(PREFS, Context.MODE_PRIVATE).getBoolean(KEY_ENABLED, false);
+        }
+        return instance;
+    }
+
+    // App-specific external storage so the files can be pulled; internal storage while it is unmounted
+    private static File dumpDirectory(Context appContext) {
+        File dir = appContext.getExternalFilesDir("mfcc_dump");
+        if (dir != null) return dir;
+        Log.w(TAG, "External storage unavailable; dumping MFCCs to internal storage");
+        return new File(appContext.getFilesDir(), "mfcc_dump");
+    }
+
+    /**
+     * @param dir directory for the dump files, created on first write
+     */
+    public MfccDump(File dir, int recordsPerFile, int maxFiles) {
+        this.dir = dir;
+        this.recordsPerFile = recordsPerFile;
+        this.maxFiles = maxFiles;
+        writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, "mfcc-dump");
+                    t.setDaemon(true);
+                    return t;
+                }, (r, executor) -> dropped.incrementAndGet());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // Persists the setting for the next process as well
+    public void setEnabled(Context context, boolean enabled) {
+        setEnabled(enabled);
+        context.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                .edit()
+                .putBoolean(KEY_ENABLED, enabled)
+                .apply();
+    }
+
+    // Tensors skipped because the writer fell behind
+    public int getDroppedCount() {
+        return dropped.get();
+    }
+
+    public File getDirectory() {
+        return dir;
+    }
+
+    /**
+     * Queues one utterance's padded MFCC tensor; a no-op while disabled. The frames are
+     * copied before returning, so the caller may reuse them.
+     */
+    public void submit(CustomMFCC.MfccResult result) {
+        if (!enabled || result == null) return;
+
+        float[] flat = new float[CustomMFCC.OUTPUT_SIZE];
+        result.copyPadded(flat);
+
+        long timestamp = System.currentTimeMillis();
+        int frames = CustomMFCC.TARGET_NUM_FRAMES;
+        int coeffs = CustomMFCC.NUM_MFCC;
+        int originalFrames = result.originalFrameCount;
+        writer.execute(() -> write(timestamp, frames, coeffs, originalFrames, flat));
+    }
+
+    /**
+     * Blocks until everything queued so far is on disk, e.g. before pulling the files.
+     */
+    public void flush() throws InterruptedException {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            if (channel != null) channel.force(false);
+            return null;
+        });
+        // Waits for queue space instead of being dropped like a submit
+        writer.prestartCoreThread();
+        writer.getQueue().put(task);
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Flush failed", e.getCause());
+        }
+    }
+
+    private void write(long timestamp, int frames, int coeffs, int originalFrames, float[] flat) {
+        try {
+            if (channel == null || recordsInFile >= recordsPerFile) openNextFile(coeffs);
+
+            int bytes = RECORD_HEADER_BYTES + flat.length * 4;
+            if (buffer == null || buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            buffer.clear();
+            buffer.putLong(timestamp).putInt(frames).putInt(originalFrames);
+            buffer.asFloatBuffer().put(flat);
+            buffer.position(bytes);
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            recordsInFile++;
+        } catch (IOException | RuntimeException e) {
+            // A debug aid must never take the app down; drop this record and retry on the next
+            Log.e(TAG, "Failed to write MFCC dump", e);
+            closeFile();
+        }
+    }
+
+    private void openNextFile(int coeffs) throws IOException {
+        closeFile();
+        if (dir == null) throw new IOException("No directory for the MFCC dump");
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+
+        // Continue after the newest existing file so a restart doesn't overwrite it
+        List<File> existing = listDumps(dir);
+        if (fileIndex == 0 && !existing.isEmpty()) {
+            fileIndex = indexOf(existing.get(existing.size() - 1)) + 1;
+        }
+
+        File file = new File(dir, String.format(Locale.ROOT, "mfcc_%05d.bin", fileIndex++));
+        channel = new FileOutputStream(file).getChannel();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(coeffs).flip();
+        while (header.hasRemaining()) channel.write(header);
+        recordsInFile = 0;
+
+        existing.add(file);
+        for (int i = 0; i < existing.size() - maxFiles; i++) {
+            if (!existing.get(i).delete()) Log.w(TAG, "Could not delete " + existing.get(i));
+        }
+        Log.d(TAG, "Dumping MFCCs to " + file.getAbsolutePath());
+    }
+
+    private void closeFile() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Error closing MFCC dump", e);
+        }
+        channel = null;
+    }
+
+    // Dump files in dir, oldest first
+    public static List<File> listDumps(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.startsWith("mfcc_") && name.endsWith(".bin"));
+        List<File> list = new ArrayList<>();
+        if (files == null) return list;
+        Arrays.sort(files, (a, b) -> Integer.compare(indexOf(a), indexOf(b)));
+        list.addAll(Arrays.asList(files));
+        return list;
+    }
+
+    private static int indexOf(File file) {
+        String name = file.getName();
+        try {
+            return Integer.parseInt(name.substring(5, name.length() - 4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ---------------------------------------------------------
+    // READING / CONVERSION (off the capture path)
+    // ---------------------------------------------------------
+
+    public static class Record {
+        public final long timestamp;
+        public final int originalFrameCount;
+        public final float[][] mfcc;
+
+        Record(long timestamp, int originalFrameCount, float[][] mfcc) {
+            this.timestamp = timestamp;
+            this.originalFrameCount = originalFrameCount;
+            this.mfcc = mfcc;
+        }
+    }
+
+    public static List<Record> read(File file) throws IOException {
+        ByteBuffer data;
+        try (FileChannel in = new FileInputStream(file).getChannel()) {
+            data = ByteBuffer.allocate((int) in.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (data.hasRemaining() && in.read(data) >= 0) { }
+        }
+        data.flip();
+
+        if (data.remaining() < HEADER_BYTES || data.getInt() != MAGIC) {
+            throw new IOException("Not an MFCC dump: " + file);
+        }
+        int version = data.getInt();
+        if (version != VERSION) throw new IOException("Unsupported dump version " + version);
+        int coeffs = data.getInt();
+
+        List<Record> records = new ArrayList<>();
+        while (data.remaining() >= RECORD_HEADER_BYTES) {
+            long timestamp = data.getLong();
+            int frames = data.getInt();
+            int originalFrames = data.getInt();
+            if (data.remaining() < frames * coeffs * 4) break; // truncated by a crash mid-write
+
+            float[][] mfcc = new float[frames][coeffs];
+            for (float[] row : mfcc) {
+                for (int j = 0; j < coeffs; j++) row[j] = data.getFloat();
+            }
+            records.add(new Record(timestamp, originalFrames, mfcc));
+        }
+        return records;
+    }
+
+    /**
+     * Same text as the old mfcc_from_app.txt: one frame per line, coefficients separated by
+     * spaces, with a "# timestamp originalFrames" line before each record.
+     */
+    public static void toText(File dump, Writer out) throws IOException {
+        for (Record record : read(dump)) {
+            out.write("# " + record.timestamp + " " + record.originalFrameCount + "\n");
+            for (float[] row : record.mfcc) {
+                for (int j = 0; j < row.length; j++) {
+                    if (j > 0) out.write(' ');
+                    out.write(Float.toString(row[j]));
+                }
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the records as a float32 .npy array of shape (records, frames, coefficients),
+     * loadable with numpy.load(). All records must have the same frame count, which holds
+     * for the padded tensors the app dumps.
+     */
+    public static void toNpy(File dump, File npy) throws IOException {
+        List<Record> records = read(dump);
+        int frames = records.isEmpty() ? 0 : records.get(0).mfcc.length;
+        int coeffs = (frames > 0) ? records.get(0).mfcc[0].length : 0;
+        for (Record record : records) {
+            if (record.mfcc.length != frames) throw new IOException("Records differ in frame count");
+        }
+
+        StringBuilder header = new StringBuilder("{'descr': '<f4', 'fortran_order': False, 'shape': ("
+                + records.size() + ", " + frames + ", " + coeffs + "), }");
+        // Magic (6) + version (2) + length (2) + header must be a multiple of 64, ending in '\n'
+        while ((10 + header.length() + 1) % 64 != 0) header.append(' ');
+        header.append('\n');
+        byte[] headerBytes = header.toString().getBytes(StandardCharsets.US_ASCII);
+
+        try (FileChannel out = new FileOutputStream(npy).getChannel()) {
+            ByteBuffer prefix = ByteBuffer.allocate(10 + headerBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+            prefix.put((byte) 0x93).put("NUMPY".getBytes(StandardCharsets.US_ASCII)).put((byte) 1).put((byte) 0);
+            prefix.putShort((short) headerBytes.length).put(headerBytes).flip();
+            while (prefix.hasRemaining()) out.write(prefix);
+
+            ByteBuffer body = ByteBuffer.allocate(frames * coeffs * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (Record record : records) {
+                body.clear();
+                for (float[] row : record.mfcc) {
+                    for (float v : row) body.putFloat(v);
+                }
+                body.flip();
+                while (body.hasRemaining()) out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Usage: MfccDump dump.bin out.(txt|npy)
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: MfccDump <dump.bin> <out.txt|out.npy>");
+            System.exit(2);
+        }
+        File dump = new File(args[0]);
+        File out = new File(args[1]);
+        if (out.getName().endsWith(".npy")) {
+            toNpy(dump, out);
+        } else {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8))) {
+                toText(dump, writer);
+            }
+        }
+    }
+}
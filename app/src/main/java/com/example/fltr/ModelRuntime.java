@@ -0,0 +1,101 @@
+package com.example.fltr;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Application-wide owner of the TFLite model. The interpreter is loaded once on a background
+ * thread and warmed up with dummy inferences, then handed to every screen, so switching
+ * activities never reloads the model and the first real utterance doesn't pay the
+ * allocation/JIT cost.
+ */
+public class ModelRuntime {
+    private static final String TAG = "ModelRuntime";
+    private static final int STEADY_STATE_RUNS = 5;
+
+    private static ModelRuntime instance;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "model-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Future<CustomMFCC.InferenceHelper> helperFuture;
+
+    private volatile float coldStartMs = -1f;
+    private volatile float firstInferenceMs = -1f;
+    private volatile float steadyStateMs = -1f;
+
+    public static synchronized ModelRuntime get(Context context) {
+        if (instance == null) {
+            instance = new ModelRuntime(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ModelRuntime(Context appContext) {
+        helperFuture = loader.submit(() -> load(appContext));
+        loader.shutdown();
+    }
+
+    private CustomMFCC.InferenceHelper load(Context appContext) throws Exception {
+        long start = System.nanoTime();
+        CustomMFCC.InferenceHelper helper = new CustomMFCC.InferenceHelper(appContext);
+        coldStartMs = (System.nanoTime() - start) / 1e6f;
+
+        // Zero input: only the timing matters here
+        float[] silence = new float[CustomMFCC.OUTPUT_SIZE];
+        start = System.nanoTime();
+        helper.runInference(silence);
+        firstInferenceMs = (System.nanoTime() - start) / 1e6f;
+
+        start = System.nanoTime();
+        for (int i = 0; i < STEADY_STATE_RUNS; i++) {
+            helper.runInference(silence);
+        }
+        steadyStateMs = (System.nanoTime() - start) / 1e6f / STEADY_STATE_RUNS;
+
+        Log.d(TAG, "Model " + helper.variant + " ready on " + helper.backend + ". Cold start=" + coldStartMs + " ms, first inference=" + firstInferenceMs
+                + " ms, steady state=" + steadyStateMs + " ms");
+        return helper;
+    }
+
+    public boolean isReady() {
+        return helperFuture.isDone();
+    }
+
+    /**
+     * Blocks until the model is loaded and warmed up; call off the main thread.
+     * @return the shared helper, or null if loading failed
+     */
+    public CustomMFCC.InferenceHelper getHelper() {
+        try {
+            return helperFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Failed to load model", e.getCause());
+            return null;
+        }
+    }
+
+    // Model load + interpreter creation (including the one-off backend benchmark), or -1 while loading
+    public float getColdStartMs() {
+        return coldStartMs;
+    }
+
+    public float getFirstInferenceMs() {
+        return firstInferenceMs;
+    }
+
+    // Average of the warm-up runs after the first
+    public float getSteadyStateMs() {
+        return steadyStateMs;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.fltr;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+
+/**
+ * Precision variants of the classifier shipped in assets. FLOAT16 keeps float32 inputs and
+ * outputs (only the weights are half precision); INT8 models take and return quantized
+ * tensors, which InferenceHelper converts using each tensor's scale and zero point.
+ *
+ * The choice is a runtime setting stored in SharedPreferences (long-press Diagnostics on the
+ * diagnostics screen) and picked up the next time the model is loaded, i.e. on app restart.
+ * A variant whose asset isn't bundled falls back to FLOAT32. The reduced-precision files are
+ * made from the float32 SavedModel with the TFLite converter (float16 weights, or full int8
+ * with a representative set of MFCC inputs) and copied into assets under the names below.
+ */
+public enum ModelVariant {
+    FLOAT32("mixed_augmented.tflite"),
+    FLOAT16("mixed_augmented_fp16.tflite"),
+    INT8("mixed_augmented_int8.tflite");
+
+    private static final String PREFS = "model_runtime";
+    private static final String KEY_VARIANT = "model_variant";
+
+    public final String assetName;
+
+    ModelVariant(String assetName) {
+        this.assetName = assetName;
+    }
+
+    public static ModelVariant selected(Context context) {
+        String stored = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                .getString(KEY_VARIANT, FLOAT32.name());
+        try {
+            return valueOf(stored);
+        } catch (IllegalArgumentException e) {
+            return FLOAT32;
+        }
+    }
+
+    // Whether this variant's model is in assets; InferenceHelper loads FLOAT32 instead if not
+    public boolean isBundled(Context context) {
+        try {
+            String[] assets = context.getAssets().list("");
+            if (assets == null) return false;
+            for (String asset : assets) {
+                if (asset.equals(assetName)) return true;
+            }
+        } catch (IOException e) {
+            Log.w("ModelVariant", "Cannot list assets: " + e.getMessage());
+        }
+        return false;
+    }
+
+    // Next variant in declaration order, wrapping around, for cycling through the setting
+    public ModelVariant next() {
+        ModelVariant[] all = values();
+        return all[(ordinal() + 1) % all.length];
+    }
+
+    public static void setSelected(Context context, ModelVariant variant) {
+        context.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                .edit()
+                .putString(KEY_VARIANT, variant.name())
+                .apply();
+    }
+}
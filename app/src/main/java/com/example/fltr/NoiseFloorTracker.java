@@ -0,0 +1,87 @@
+package com.example.fltr;
+
+import android.util.Log;
+
+/**
+ * Online estimate of the background noise level from per-chunk RMS, in O(1) memory.
+ * The estimate follows quieter chunks quickly and louder ones slowly (an asymmetric
+ * exponential tracker in the spirit of minimum statistics), so speech bursts barely move
+ * it while a drifting room noise is followed within a few seconds.
+ *
+ * The speech threshold is the floor times SNR_FACTOR, never below MIN_THRESHOLD. Feed
+ * only non-speech chunks. Methods are synchronized because the capture session feeds it
+ * between utterances and the processing thread during them.
+ */
+public class NoiseFloorTracker {
+    private static final String TAG = "NoiseFloorTracker";
+
+    public static final float SNR_FACTOR = 2.5f;     // same margin the one-shot calibration used
+    public static final float MIN_THRESHOLD = 400f;  // RMS; keeps a silent room from triggering on breath
+    private static final float FALL_RATE = 0.2f;     // per chunk, ~0.1 s to follow a drop
+    private static final float RISE_RATE = 0.01f;    // per chunk, ~2.3 s to follow a rise
+    private static final float MAX_RISE_STEP = 2f;   // a single loud chunk counts as at most 2x the floor
+    private static final float REPORT_CHANGE = 0.1f; // threshold moves of 10% or more count as a change
+
+    private float floor;
+    private float reportedThreshold;
+    private int thresholdChanges;
+    private long updates;
+
+    /**
+     * @param initialThreshold speech threshold (RMS) to start from until noise has been observed
+     */
+    public NoiseFloorTracker(float initialThreshold) {
+        floor = initialThreshold / SNR_FACTOR;
+        reportedThreshold = getThreshold();
+    }
+
+    // One non-speech chunk's RMS
+    public synchronized void update(float rms) {
+        if (rms < floor) {
+            floor += FALL_RATE * (rms - floor);
+        } else {
+            floor += RISE_RATE * (Math.min(rms, floor * MAX_RISE_STEP) - floor);
+        }
+        updates++;
+
+        float threshold = getThreshold();
+        if (Math.abs(threshold - reportedThreshold) >= REPORT_CHANGE * reportedThreshold) {
+            thresholdChanges++;
+            Log.d(TAG, "Threshold " + reportedThreshold + " -> " + threshold + " (floor " + floor + ")");
+            reportedThreshold = threshold;
+        }
+    }
+
+    // Replaces the estimate outright, e.g. from an explicit calibration
+    public synchronized void seed(float noiseRms) {
+        floor = noiseRms;
+        thresholdChanges++;
+        reportedThreshold = getThreshold();
+    }
+
+    public synchronized float getNoiseFloor() {
+        return floor;
+    }
+
+    public synchronized float getThreshold() {
+        return Math.max(MIN_THRESHOLD, floor * SNR_FACTOR);
+    }
+
+    // Number of times the threshold has moved by REPORT_CHANGE or more since creation
+    public synchronized int getThresholdChanges() {
+        return thresholdChanges;
+    }
+
+    public synchronized long getUpdateCount() {
+        return updates;
+    }
+
+    public static float rms(short[] chunk, int length) {
+        if (length <= 0) return 0f;
+        double sumSquares = 0;
+        for (int i = 0; i < length; i++) {
+            sumSquares += (double) chunk[i] * chunk[i];
+        }
+        return (float) Math.sqrt(sumSquares / length);
+    }
+}
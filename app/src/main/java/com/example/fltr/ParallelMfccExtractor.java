@@ -0,0 +1,120 @@
+package com.example.fltr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits the frames of one utterance across a bounded worker pool. Frames are independent
+ * once the signal is pre-emphasized, so each worker takes a contiguous range with its own
+ * MfccWorkspace. Short utterances stay on the calling thread, where the handoff would cost
+ * more than it saves. An instance owns its scratch, so calls on one instance are serialized.
+ */
+public class ParallelMfccExtractor {
+    // Below this many frames the work runs serially on the caller
+    public static final int MIN_PARALLEL_FRAMES = 32;
+
+    private static ParallelMfccExtractor shared;
+
+    private final int workers;
+    private final ExecutorService pool;
+    private final CustomMFCC.MfccWorkspace[] workspaces;
+    private final CustomMFCC.MfccWorkspace callerWorkspace = new CustomMFCC.MfccWorkspace();
+
+    public ParallelMfccExtractor() {
+        this(InterpreterFactory.bigCoreCount());
+    }
+
+    public ParallelMfccExtractor(int workers) {
+        this.workers = Math.max(1, workers);
+
+        // The calling thread takes the first range itself, so the pool needs one thread less
+        workspaces = new CustomMFCC.MfccWorkspace[this.workers];
+        workspaces[0] = callerWorkspace;
+        for (int i = 1; i < this.workers; i++) {
+            workspaces[i] = new CustomMFCC.MfccWorkspace(0);
+        }
+
+        if (this.workers > 1) {
+            int[] threadId = {0};
+            pool = Executors.newFixedThreadPool(this.workers - 1, r -> {
+                Thread t = new Thread(r, "mfcc-worker-" + (++threadId[0]));
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            pool = null;
+        }
+    }
+
+    // Process-wide instance sized to the big cores, used by CustomMFCC.extractMFCCs(short[])
+    static synchronized ParallelMfccExtractor shared() {
+        if (shared == null) shared = new ParallelMfccExtractor();
+        return shared;
+    }
+
+    public int getWorkerCount() {
+        return workers;
+    }
+
+    /**
+     * Same contract as CustomMFCC.extractMFCCs(short[], int, MfccWorkspace, float[]).
+     * @param out flat row-major [TARGET_NUM_FRAMES][NUM_MFCC] buffer, zero-padded
+     * @return the frame count before padding/truncation
+     */
+    public int extract(short[] pcm, int length, float[] out) {
+        int numFrames = CustomMFCC.frameCount(length);
+        int frames = Math.min(numFrames, CustomMFCC.TARGET_NUM_FRAMES);
+        computeFrames(pcm, length, frames, out);
+        Arrays.fill(out, Math.max(frames, 0) * CustomMFCC.NUM_MFCC, CustomMFCC.OUTPUT_SIZE, 0f);
+        return Math.max(numFrames, 0);
+    }
+
+    /**
+     * Computes the first numFrames frames of pcm into out, row-major [numFrames][NUM_MFCC].
+     */
+    public synchronized void computeFrames(short[] pcm, int length, int numFrames, float[] out) {
+        if (numFrames <= 0) return;
+
+        int signalLength = CustomMFCC.signalLength(length, numFrames);
+        float[] signal = callerWorkspace.signal(signalLength);
+        CustomMFCC.normalizeAndPreEmphasize(pcm, signalLength, signal);
+
+        if (pool == null || numFrames < MIN_PARALLEL_FRAMES) {
+            CustomMFCC.computeFrameRange(signal, signalLength, 0, numFrames, callerWorkspace, out);
+            return;
+        }
+
+        int perWorker = (numFrames + workers - 1) / workers;
+        List<Future<?>> pending = new ArrayList<>(workers - 1);
+        for (int w = 1; w < workers; w++) {
+            int from = w * perWorker;
+            int to = Math.min(numFrames, from + perWorker);
+            if (from >= to) break;
+            CustomMFCC.MfccWorkspace workspace = workspaces[w];
+            pending.add(pool.submit(() ->
+                    CustomMFCC.computeFrameRange(signal, signalLength, from, to, workspace, out)));
+        }
+
+        CustomMFCC.computeFrameRange(signal, signalLength, 0, Math.min(numFrames, perWorker), callerWorkspace, out);
+
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("MFCC extraction interrupted", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("MFCC worker failed", e.getCause());
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+}
@@ -1,14 +1,10 @@
 package com.example.fltr;
 
 import android.Manifest;
-import android.content.ContentValues;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.media.AudioRecord;
-import android.net.Uri;
 import android.os.Bundle;
-import android.os.Environment;
-import android.provider.MediaStore;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
@@ -19,13 +15,6 @@ import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -41,7 +30,6 @@ public class ScreenMain extends AppCompatActivity {
     private Button recordButton;
     private Button saveButton;
     private TextView rtfView;
-    private TextView resultView;
     private MfccVisualizerView mfccView;
     private TextView baybayinView;
     private TextView syllableView;
@@ -49,11 +37,11 @@ public class ScreenMain extends AppCompatActivity {
     private TextView calibrationStatusView;
 
     private boolean simpleMode = true; // SIMPLE MODE is default
-    private float[][] paddedMfcc;
-    private float[][] originalMfcc;
 
-    private CustomMFCC.InferenceHelper inferenceHelper;  // Using CustomMFCC's InferenceHelper
+    private ModelRuntime modelRuntime;  // Shared, preloaded InferenceHelper
     private AudioEngine audioEngine = new AudioEngine();
+    private MfccDump mfccDump;
+    private SpeculativeClassifier speculativeClassifier; // Early exit, once the model is ready
 
     // UI mode toggle
     private Switch simpleModeToggle;
@@ -104,13 +92,9 @@ public class ScreenMain extends AppCompatActivity {
         // Request microphone permission
         ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.RECORD_AUDIO}, REQUEST_RECORD_AUDIO);
 
-        // Initialize inference helper
-        try {
-            inferenceHelper = new CustomMFCC.InferenceHelper(this);
-        } catch (IOException e) {
-            e.printStackTrace();
-            Log.e("ScreenMain", "Failed to init InferenceHelper: " + e.getMessage());
-        }
+        // Model is loaded once per process by FltrApplication
+        modelRuntime = ModelRuntime.get(this);
+        mfccDump = MfccDump.get(this);
 
         // Record button behavior
         recordButton.setOnClickListener(view -> {
@@ -150,6 +134,30 @@ public class ScreenMain extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Keep the microphone open while visible so taps don't pay AudioRecord start-up
+        audioEngine.startSession();
+    }
+
+    @Override
+    protected void onPause() {
+        audioEngine.stopSession();
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        // The classifier owns a worker thread; detach it first so no capture submits to a dead executor
+        if (speculativeClassifier != null) {
+            audioEngine.setSpeculativeClassifier(null);
+            speculativeClassifier.shutdown();
+            speculativeClassifier = null;
+        }
+        super.onDestroy();
+    }
+
     private void showCalibrationStatus(String text) {
         calibrationStatusView.setText(text);
         calibrationStatusView.setVisibility(View.VISIBLE);
@@ -169,40 +177,50 @@ public class ScreenMain extends AppCompatActivity {
 
     private void startRecording() {
         isRecording = true;
+
+        // Stop listening as soon as the prediction on the partial word settles
+        if (speculativeClassifier == null && modelRuntime.isReady()) {
+            CustomMFCC.InferenceHelper helper = modelRuntime.getHelper();
+            if (helper != null) {
+                speculativeClassifier = new SpeculativeClassifier(helper);
+                audioEngine.setSpeculativeClassifier(speculativeClassifier);
+            }
+        }
+
         audioEngine.startRecording(new AudioEngine.RecordingCallback() {
             @Override
-            public void onRecordingFinished(short[] audioData) {
+            public void onRecordingFinished(CustomMFCC.MfccResult mfccResult) {
                 long startTime = System.currentTimeMillis();
 
-                // Extract MFCCs
-                CustomMFCC.MfccResult mfccResult = CustomMFCC.extractMFCCs(audioData);
+                // MFCCs were extracted by AudioEngine while recording
 
-                // Save MFCC for inspection (non-blocking-ish)
-                saveMFCCtoFile(mfccResult.paddedMfcc, "mfcc_input_before_inference.txt");
+                // Debug dump of the model input; queued to a background writer, no-op unless enabled
+                mfccDump.submit(mfccResult);
 
-                // Store for visualization
-                paddedMfcc = mfccResult.paddedMfcc;
-                originalMfcc = mfccResult.originalMfcc; // if your MfccResult contains it
-
-                // Run inference
+                // Run inference (waits here if the model is still warming up)
+                CustomMFCC.InferenceHelper inferenceHelper = modelRuntime.getHelper();
                 CustomMFCC.InferenceResult inferenceResult = null;
                 if (inferenceHelper != null) {
-                    inferenceResult = inferenceHelper.runInference(mfccResult.paddedMfcc);
+                    inferenceResult = inferenceHelper.runInference(mfccResult);
                 } else {
                     Log.e("ScreenMain", "InferenceHelper is null; skipping inference");
                 }
 
-                String predictedLabel = (inferenceResult != null) ? inferenceResult.label : "unknown";
                 float confidence = (inferenceResult != null) ? inferenceResult.confidence : 0f;
                 float processingTimeSec = (inferenceResult != null) ? inferenceResult.processingTimeSec : 0f;
+                boolean matched = inferenceResult != null && inferenceResult.matched;
+
+                // Baybayin from the helper's per-label table; low-confidence predictions are not translated
+                String baybayinOutput = matched ? inferenceHelper.baybayin[inferenceResult.bestIndex] : "No match";
 
-                // Translate to Baybayin
-                String baybayinOutput = BaybayinTranslator.translateToBaybayin(predictedLabel);
 
 
+                // Kept for offline replay when the session archive is on; written in the background
+                SessionArchive.appendIfEnabled(ScreenMain.this, audioEngine, mfccResult, inferenceResult,
+                        System.currentTimeMillis() - startTime);
 
                 // Syllable segmentation
-                final String syllables = segmentSyllables(predictedLabel);
+                final String syllables = matched ? inferenceHelper.syllables[inferenceResult.bestIndex] : "";
 
                 runOnUiThread(() -> {
                     // Update UI
@@ -222,7 +240,8 @@ public class ScreenMain extends AppCompatActivity {
             @Override
             public void onError(Exception e) {
                 runOnUiThread(() -> {
-                    resultView.setText("Error: " + e.getMessage());
+                    showCalibrationStatus("Error: " + e.getMessage());
+                    calibrationStatusView.postDelayed(() -> hideCalibrationStatus(), 2000);
                     recordButton.setText("Tap to Speak");
                     isRecording = false;
                 });
@@ -235,139 +254,30 @@ public class ScreenMain extends AppCompatActivity {
     }
 
     private void saveLastRecordingAsWav() {
-        byte[] pcmBytes = audioEngine.getLastTrimmedPcm();
-        if (pcmBytes == null) {
-            resultView.setText("No recording available.");
-            return;
-        }
-
-        String fileName = "recording_" + System.currentTimeMillis() + ".wav";
-
-        ContentValues values = new ContentValues();
-        values.put(MediaStore.Downloads.DISPLAY_NAME, fileName);
-        values.put(MediaStore.Downloads.MIME_TYPE, "audio/wav");
-        values.put(MediaStore.Downloads.IS_PENDING, 1);
-
-        Uri downloads = MediaStore.Downloads.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY);
-        Uri fileUri = getContentResolver().insert(downloads, values);
-
-        if (fileUri == null) {
-            resultView.setText("Failed to create file.");
-            return;
-        }
-
-        try (OutputStream out = getContentResolver().openOutputStream(fileUri)) {
-            if (out == null) throw new IOException("OutputStream is null.");
-
-            writeWavHeader(out, pcmBytes.length, AudioEngine.SAMPLE_RATE, 1, 16);
-            out.write(pcmBytes);
-
-            values.clear();
-            values.put(MediaStore.Downloads.IS_PENDING, 0);
-            getContentResolver().update(fileUri, values, null, null);
-
-            runOnUiThread(() -> resultView.setText("Saved to Downloads as " + fileName));
-        } catch (Exception e) {
-            e.printStackTrace();
-            runOnUiThread(() -> resultView.setText("Failed to save WAV: " + e.getMessage()));
-        }
-    }
-
-    private void writeWavHeader(OutputStream out, int audioLen, int sampleRate, int channels, int bitsPerSample) throws IOException {
-        int byteRate = sampleRate * channels * bitsPerSample / 8;
-        int dataLen = 36 + audioLen;
-
-        out.write("RIFF".getBytes());
-        out.write(intToLE(dataLen));
-        out.write("WAVE".getBytes());
-        out.write("fmt ".getBytes());
-        out.write(intToLE(16)); // Subchunk1Size
-        out.write(shortToLE((short) 1)); // PCM
-        out.write(shortToLE((short) channels));
-        out.write(intToLE(sampleRate));
-        out.write(intToLE(byteRate));
-        out.write(shortToLE((short) (channels * bitsPerSample / 8)));
-        out.write(shortToLE((short) bitsPerSample));
-        out.write("data".getBytes());
-        out.write(intToLE(audioLen));
-    }
-
-    private byte[] intToLE(int val) {
-        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(val).array();
-    }
-
-    private byte[] shortToLE(short val) {
-        return ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN).putShort(val).array();
-    }
-
-    private void saveMFCCtoFile(float[][] mfcc, String filename) {
-        if (mfcc == null) return;
-
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < mfcc.length; i++) {
-            for (int j = 0; j < mfcc[i].length; j++) {
-                sb.append(mfcc[i][j]);
-                if (j < mfcc[i].length - 1) sb.append(" ");
-            }
-            sb.append("\n");
-        }
-
-        String mfccFile = "mfcc_from_app.txt";
-        File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
-        File file = new File(downloadsDir, mfccFile);
-
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            fos.write(sb.toString().getBytes(StandardCharsets.UTF_8));
-            Log.d("ScreenMain", "MFCC saved to file: " + file.getAbsolutePath());
-        } catch (IOException e) {
-            Log.e("ScreenMain", "Error saving MFCC to file", e);
-        }
-    }
-
-    /**
-     * Basic heuristic syllabifier for UI display. Works with romanized Filipino words.
-     * Uses simple greedy matching similar to BaybayinSyllableHelper logic.
-     */
-    private String segmentSyllables(String word) {
-        if (word == null) return "";
-        String w = word.toLowerCase().replaceAll("[^a-z]", "");
-
-        StringBuilder out = new StringBuilder();
-        int i = 0;
-
-        while (i < w.length()) {
-            String chunk = null;
-
-            // Try 3-letter chunk
-            if (i + 2 < w.length()) {
-                String s3 = w.substring(i, i + 3);
-                if (BaybayinTranslator.baybayinMap.containsKey(s3)) {
-                    chunk = s3;
-                    i += 3;
-                }
-            }
+        // Encoding and the MediaStore calls run on WavSaver's I/O thread
+        // This screen has no result line; report through the calibration status banner
+        saveButton.setEnabled(false);
+        showCalibrationStatus("Saving...");
 
-            // Try 2-letter chunk
-            if (chunk == null && i + 1 < w.length()) {
-                String s2 = w.substring(i, i + 2);
-                if (BaybayinTranslator.baybayinMap.containsKey(s2)) {
-                    chunk = s2;
-                    i += 2;
-                }
+        WavSaver.saveLastRecording(this, audioEngine, new WavSaver.Callback() {
+            @Override
+            public void onSaved(String fileName) {
+                runOnUiThread(() -> {
+                    showCalibrationStatus("Saved to Downloads as " + fileName);
+                    calibrationStatusView.postDelayed(() -> hideCalibrationStatus(), 2000);
+                    saveButton.setEnabled(true);
+                });
             }
 
-            // Fallback to single letter (vowel or consonant)
-            if (chunk == null) {
-                String s1 = w.substring(i, i + 1);
-                chunk = s1;  // even if not in map, follow translator fallback
-                i += 1;
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() -> {
+                    showCalibrationStatus("Failed to save WAV: " + e.getMessage());
+                    calibrationStatusView.postDelayed(() -> hideCalibrationStatus(), 2000);
+                    saveButton.setEnabled(true);
+                });
             }
-
-            if (out.length() > 0) out.append(" · ");
-            out.append(chunk);
-        }
-
-        return out.toString();
+        });
     }
 
 }
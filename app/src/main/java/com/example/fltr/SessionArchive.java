@@ -0,0 +1,590 @@
+package com.example.fltr;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only archive of recognized utterances, off by default. Each record keeps the
+ * trimmed PCM before normalization (losslessly coded, FLAC-style prediction + Rice codes) with its gain,
+ * the padded MFCC tensor, the prediction and the stage timings, so any utterance can be
+ * replayed through the extractor and the model later without the microphone.
+ *
+ * A session is two files: name.dat holds the records and name.idx one fixed 16-byte entry
+ * (int64 timestamp, int64 offset) per record. Record i is therefore one positional read
+ * away, and timestamps, which only grow, can be binary searched. Entries are written after
+ * their record, so on reopen anything past the last complete entry is cut off.
+ *
+ * Record layout, little-endian, after an int32 byte count:
+ * <pre>
+ *   int64 timestamp
+ *   int32 samples, float32 gain, int32 pcm bytes, pcm
+ *   int32 frames, int32 coefficients, int32 original frames, float32 mfcc[frames * coefficients]
+ *   int32 best index, float32 confidence, int16 label bytes, UTF-8 label
+ *   float32 start latency ms, float32 inference ms, float32 total ms
+ * </pre>
+ */
+public class SessionArchive {
+    private static final String TAG = "SessionArchive";
+    private static final String PREFS = "model_runtime";
+    private static final String KEY_ENABLED = "session_archive_enabled";
+
+    public static final int MAGIC = 0x53455346; // "FSES" read as a little-endian int
+    public static final int VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int INDEX_ENTRY_BYTES = 16;
+    private static final int QUEUE_CAPACITY = 4;
+
+    // PCM codec
+    private static final int PCM_BLOCK = 4096;
+    private static final int MAX_RICE_PARAMETER = 20;
+    private static final int RICE_ESCAPE = 24;        // quotients this long are stored raw instead
+    private static final int RAW_RESIDUAL_BITS = 20;  // order-2 residuals of 16-bit audio fit in 19 bits, zigzagged in 20
+
+    private static SessionArchive instance;
+
+    private final File dataFile;
+    private final File indexFile;
+    private final FileChannel data;
+    private final FileChannel index;
+    private final ThreadPoolExecutor writer;
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    // In-memory copy of the index; guarded by this
+    private long[] timestamps = new long[64];
+    private long[] offsets = new long[64];
+    private int count;
+    private long dataEnd;
+
+    public static class Record {
+        public final long timestamp;
+        public final short[] samples;  // trimmed, before peak normalization
+        public final float gain;       // normalization applied when the MFCCs were computed
+        public final float[][] mfcc;   // padded model input
+        public final int originalFrameCount;
+        public final int bestIndex;
+        public final String label;
+        public final float confidence;
+        public final float startLatencyMs;
+        public final float inferenceMs;
+        public final float totalMs;
+
+        public Record(long timestamp, short[] samples, float gain, float[][] mfcc, int originalFrameCount,
+                      int bestIndex, String label, float confidence,
+                      float startLatencyMs, float inferenceMs, float totalMs) {
+            this.timestamp = timestamp;
+            this.samples = samples;
+            this.gain = gain;
+            this.mfcc = mfcc;
+            this.originalFrameCount = originalFrameCount;
+            this.bestIndex = bestIndex;
+            this.label = label;
+            this.confidence = confidence;
+            this.startLatencyMs = startLatencyMs;
+            this.inferenceMs = inferenceMs;
+            this.totalMs = totalMs;
+        }
+    }
+
+    public static class ReplayResult {
+        public final Record record;
+        public final CustomMFCC.MfccResult mfccResult;
+        public final CustomMFCC.InferenceResult inferenceResult;
+        public final float maxMfccDiff; // against the stored tensor
+        public final boolean labelMatches;
+
+        ReplayResult(Record record, CustomMFCC.MfccResult mfccResult, CustomMFCC.InferenceResult inferenceResult) {
+            this.record = record;
+            this.mfccResult = mfccResult;
+            this.inferenceResult = inferenceResult;
+            this.maxMfccDiff = maxDiff(record.mfcc, mfccResult.paddedMfcc());
+            this.labelMatches = inferenceResult != null && inferenceResult.bestIndex == record.bestIndex;
+        }
+    }
+
+    /**
+     * Archive for this process, a new session in sessionsDirectory() opened on first use.
+     */
+    public static synchronized SessionArchive get(Context context) throws IOException {
+        if (instance == null) {
+            instance = new SessionArchive(sessionsDirectory(context), "session_" + System.currentTimeMillis());
+        }
+        return instance;
+    }
+
+    // getExternalFilesDir("sessions"), or internal storage while external storage is unmounted
+    public static File sessionsDirectory(Context context) {
+        Context appContext = context.getApplicationContext();
+        File dir = appContext.getExternalFilesDir("sessions");
+        if (dir != null) return dir;
+        Log.w(TAG, "External storage unavailable; archiving sessions to internal storage");
+        return new File(appContext.getFilesDir(), "sessions");
+    }
+
+    public static boolean isEnabled(Context context) {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).getBoolean(KEY_ENABLED, false);
+    }
+
+    public static void setEnabled(Context context, boolean enable) {
+        context.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                .edit()
+                .putBoolean(KEY_ENABLED, enable)
+                .apply();
+    }
+
+    /**
+     * Archives the utterance AudioEngine just finished if archiving is turned on. Only copies
+     * the samples here; coding and I/O happen on the archive's writer thread.
+     */
+    public static void appendIfEnabled(Context context, AudioEngine audioEngine, CustomMFCC.MfccResult mfccResult,
+                                       CustomMFCC.InferenceResult inferenceResult, float totalMs) {
+        if (!isEnabled(context) || mfccResult == null) return;
+        short[] samples = audioEngine.copyLastRecording();
+        if (samples == null) return;
+
+        Record record = new Record(System.currentTimeMillis(), samples, audioEngine.getLastGain(),
+                mfccResult.paddedMfcc(), mfccResult.originalFrameCount,
+                (inferenceResult != null) ? inferenceResult.bestIndex : -1,
+                (inferenceResult != null) ? inferenceResult.label : "",
+                (inferenceResult != null) ? inferenceResult.confidence : 0f,
+                audioEngine.getLastStartLatencyMs(),
+                (inferenceResult != null) ? inferenceResult.processingTimeSec * 1000f : 0f,
+                totalMs);
+        try {
+            get(context).append(record);
+        } catch (IOException | RuntimeException e) {
+            // Runs inside the recognition callback; archiving failures must not break recognition
+            Log.e(TAG, "Cannot open session archive", e);
+        }
+    }
+
+    /**
+     * Opens dir/name.dat and dir/name.idx, creating them if needed, and drops any partly
+     * written tail left by a crash.
+     */
+    public SessionArchive(File dir, String name) throws IOException {
+        if (dir == null) throw new IOException("No directory for the session archive");
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        dataFile = new File(dir, name + ".dat");
+        indexFile = new File(dir, name + ".idx");
+        data = new RandomAccessFile(dataFile, "rw").getChannel();
+        index = new RandomAccessFile(indexFile, "rw").getChannel();
+        recover();
+
+        writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread t = new Thread(r, "session-archive");
+                    t.setDaemon(true);
+                    return t;
+                }, (r, executor) -> dropped.incrementAndGet());
+    }
+
+    private void recover() throws IOException {
+        if (data.size() < FILE_HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            data.truncate(0);
+            writeFully(data, header, 0);
+            index.truncate(0);
+            dataEnd = FILE_HEADER_BYTES;
+            return;
+        }
+
+        ByteBuffer header = readFully(data, 0, FILE_HEADER_BYTES);
+        if (header.getInt() != MAGIC) throw new IOException("Not a session archive: " + dataFile);
+        int version = header.getInt();
+        if (version != VERSION) throw new IOException("Unsupported archive version " + version);
+
+        int entries = (int) (index.size() / INDEX_ENTRY_BYTES);
+        ByteBuffer all = readFully(index, 0, entries * INDEX_ENTRY_BYTES);
+        dataEnd = FILE_HEADER_BYTES;
+        for (int i = 0; i < entries; i++) {
+            long timestamp = all.getLong();
+            long offset = all.getLong();
+            if (offset != dataEnd || offset + 4 > data.size()) break;
+            int length = readFully(data, offset, 4).getInt();
+            if (length < 0 || offset + 4 + length > data.size()) break;
+            addEntry(timestamp, offset);
+            dataEnd = offset + 4 + length;
+        }
+
+        if (count < entries || data.size() > dataEnd) {
+            Log.w(TAG, "Dropping incomplete tail of " + dataFile.getName() + " after " + count + " records");
+            index.truncate((long) count * INDEX_ENTRY_BYTES);
+            data.truncate(dataEnd);
+        }
+    }
+
+    // Queues a record for the writer thread; dropped and counted if the writer is behind
+    public void append(Record record) {
+        writer.execute(() -> {
+            try {
+                write(record);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Failed to archive utterance", e);
+            }
+        });
+    }
+
+    // Blocks until every queued record is written
+    public void flush() throws InterruptedException {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            data.force(false);
+            index.force(false);
+            return null;
+        });
+        writer.prestartCoreThread();
+        writer.getQueue().put(task);
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Flush failed", e.getCause());
+        }
+    }
+
+    public void close() throws IOException, InterruptedException {
+        flush();
+        writer.shutdown();
+        data.close();
+        index.close();
+    }
+
+    public int getDroppedCount() {
+        return dropped.get();
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long getTimestamp(int i) {
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Record " + i + " of " + count);
+        return timestamps[i];
+    }
+
+    /**
+     * @return the first record at or after timestampMs, or size() if there is none
+     */
+    public synchronized int indexOf(long timestampMs) {
+        int i = Arrays.binarySearch(timestamps, 0, count, timestampMs);
+        if (i < 0) return -i - 1;
+        while (i > 0 && timestamps[i - 1] == timestampMs) i--;
+        return i;
+    }
+
+    public Record read(int i) throws IOException {
+        long offset;
+        synchronized (this) {
+            if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Record " + i + " of " + count);
+            offset = offsets[i];
+        }
+        int length = readFully(data, offset, 4).getInt();
+        return decode(readFully(data, offset + 4, length));
+    }
+
+    /**
+     * Recomputes the MFCCs from the stored PCM exactly as capture did, without a model.
+     */
+    public static CustomMFCC.MfccResult replayMfcc(Record record) {
+        CustomMFCC.StreamingExtractor extractor = new CustomMFCC.StreamingExtractor();
+        extractor.accept(record.samples, 0, record.samples.length);
+        return extractor.finish(record.gain);
+    }
+
+    // Replays record i through the extractor and the model
+    public ReplayResult replay(int i, CustomMFCC.InferenceHelper helper) throws IOException {
+        Record record = read(i);
+        CustomMFCC.MfccResult mfccResult = replayMfcc(record);
+        CustomMFCC.InferenceResult inference = (helper != null) ? helper.runInference(mfccResult) : null;
+        return new ReplayResult(record, mfccResult, inference);
+    }
+
+    // Session names in dir, oldest first
+    public static List<String> listSessions(File dir) {
+        List<String> names = new ArrayList<>();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".dat"));
+        if (files == null) return names;
+        for (File file : files) {
+            String name = file.getName();
+            names.add(name.substring(0, name.length() - 4));
+        }
+        names.sort(null);
+        return names;
+    }
+
+    // ---------------------------------------------------------
+    // RECORD CODING (writer thread / readers)
+    // ---------------------------------------------------------
+
+    private void write(Record record) throws IOException {
+        byte[] label = record.label.getBytes(StandardCharsets.UTF_8);
+        byte[] pcm = new byte[maxEncodedBytes(record.samples.length)];
+        int pcmBytes = encodePcm(record.samples, record.samples.length, pcm);
+        int frames = record.mfcc.length;
+        int coeffs = (frames > 0) ? record.mfcc[0].length : 0;
+
+        int length = 8 + 12 + pcmBytes + 12 + frames * coeffs * 4 + 10 + label.length + 12;
+        ByteBuffer buffer = ByteBuffer.allocate(4 + length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(length);
+        buffer.putLong(record.timestamp);
+        buffer.putInt(record.samples.length).putFloat(record.gain).putInt(pcmBytes).put(pcm, 0, pcmBytes);
+        buffer.putInt(frames).putInt(coeffs).putInt(record.originalFrameCount);
+        for (float[] row : record.mfcc) {
+            for (float v : row) buffer.putFloat(v);
+        }
+        buffer.putInt(record.bestIndex).putFloat(record.confidence);
+        buffer.putShort((short) label.length).put(label);
+        buffer.putFloat(record.startLatencyMs).putFloat(record.inferenceMs).putFloat(record.totalMs);
+        buffer.flip();
+
+        // Only this thread appends, so the end positions can't move underneath it
+        long offset;
+        int position;
+        synchronized (this) {
+            offset = dataEnd;
+            position = count;
+        }
+        writeFully(data, buffer, offset);
+
+        // The entry only goes in once the record is complete
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        entry.putLong(record.timestamp).putLong(offset).flip();
+        writeFully(index, entry, (long) position * INDEX_ENTRY_BYTES);
+
+        synchronized (this) {
+            addEntry(record.timestamp, offset);
+            dataEnd = offset + 4 + length;
+        }
+        Log.d(TAG, "Archived record " + position + ": " + record.samples.length * 2 + " PCM bytes stored as " + pcmBytes);
+    }
+
+    private static Record decode(ByteBuffer buffer) throws IOException {
+        try {
+            long timestamp = buffer.getLong();
+            int sampleCount = buffer.getInt();
+            float gain = buffer.getFloat();
+            int pcmBytes = buffer.getInt();
+            short[] samples = new short[sampleCount];
+            decodePcm(buffer.array(), buffer.arrayOffset() + buffer.position(), samples, sampleCount);
+            buffer.position(buffer.position() + pcmBytes);
+
+            int frames = buffer.getInt();
+            int coeffs = buffer.getInt();
+            int originalFrames = buffer.getInt();
+            float[][] mfcc = new float[frames][coeffs];
+            for (float[] row : mfcc) {
+                for (int j = 0; j < coeffs; j++) row[j] = buffer.getFloat();
+            }
+
+            int bestIndex = buffer.getInt();
+            float confidence = buffer.getFloat();
+            byte[] label = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(label);
+            float startLatencyMs = buffer.getFloat();
+            float inferenceMs = buffer.getFloat();
+            float totalMs = buffer.getFloat();
+
+            return new Record(timestamp, samples, gain, mfcc, originalFrames, bestIndex,
+                    new String(label, StandardCharsets.UTF_8), confidence, startLatencyMs, inferenceMs, totalMs);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt archive record", e);
+        }
+    }
+
+    /**
+     * Lossless PCM coding in the style of FLAC: each sample is predicted as
+     * 2 * previous - the one before (FLAC's fixed order-2 predictor), and the zigzag-mapped
+     * residuals are Rice coded with a parameter picked per block of PCM_BLOCK samples from
+     * the block's mean. Speech at 44.1 kHz is smooth at the sample level, so residuals are
+     * small; a residual too large for the block's parameter is escaped and stored raw.
+     * @param out at least maxEncodedBytes(length) bytes
+     * @return bytes written
+     */
+    static int encodePcm(short[] samples, int length, byte[] out) {
+        int[] residuals = new int[Math.min(length, PCM_BLOCK)];
+        BitWriter bits = new BitWriter(out);
+        int prev1 = 0;
+        int prev2 = 0;
+
+        for (int start = 0; start < length; start += PCM_BLOCK) {
+            int n = Math.min(PCM_BLOCK, length - start);
+            long sum = 0;
+            for (int i = 0; i < n; i++) {
+                int sample = samples[start + i];
+                int residual = sample - (2 * prev1 - prev2);
+                prev2 = prev1;
+                prev1 = sample;
+                residuals[i] = (residual << 1) ^ (residual >> 31);
+                sum += residuals[i];
+            }
+
+            int k = Math.min(MAX_RICE_PARAMETER, 63 - Long.numberOfLeadingZeros(sum / n + 1));
+            bits.write(k, 5);
+            for (int i = 0; i < n; i++) {
+                int q = residuals[i] >>> k;
+                if (q < RICE_ESCAPE) {
+                    bits.writeOnes(q);
+                    bits.write(0, 1);
+                    bits.write(residuals[i] & ((1 << k) - 1), k);
+                } else {
+                    bits.writeOnes(RICE_ESCAPE);
+                    bits.write(residuals[i], RAW_RESIDUAL_BITS);
+                }
+            }
+        }
+        return bits.finish();
+    }
+
+    // Worst case for encodePcm(): every residual escaped, plus the block headers
+    static int maxEncodedBytes(int length) {
+        long bits = (long) length * (RICE_ESCAPE + RAW_RESIDUAL_BITS) + 5L * (length / PCM_BLOCK + 1);
+        return (int) ((bits + 7) / 8);
+    }
+
+    /**
+     * Inverse of encodePcm().
+     * @return bytes consumed
+     */
+    static int decodePcm(byte[] in, int offset, short[] out, int length) {
+        BitReader bits = new BitReader(in, offset);
+        int prev1 = 0;
+        int prev2 = 0;
+
+        for (int start = 0; start < length; start += PCM_BLOCK) {
+            int n = Math.min(PCM_BLOCK, length - start);
+            int k = bits.read(5);
+            for (int i = 0; i < n; i++) {
+                int q = bits.readOnes(RICE_ESCAPE);
+                int zigzag = (q < RICE_ESCAPE) ? (q << k) | bits.read(k) : bits.read(RAW_RESIDUAL_BITS);
+                int sample = 2 * prev1 - prev2 + ((zigzag >>> 1) ^ -(zigzag & 1));
+                prev2 = prev1;
+                prev1 = sample;
+                out[start + i] = (short) sample;
+            }
+        }
+        return bits.bytesConsumed();
+    }
+
+    private static class BitWriter {
+        private final byte[] out;
+        private int pos;
+        private long acc;
+        private int count;
+
+        BitWriter(byte[] out) {
+            this.out = out;
+        }
+
+        // Low n bits of value, most significant first; n <= 32
+        void write(int value, int n) {
+            acc = (acc << n) | (value & ((1L << n) - 1));
+            count += n;
+            while (count >= 8) {
+                count -= 8;
+                out[pos++] = (byte) (acc >>> count);
+            }
+        }
+
+        void writeOnes(int n) {
+            while (n > 0) {
+                int m = Math.min(n, 24);
+                write((1 << m) - 1, m);
+                n -= m;
+            }
+        }
+
+        // Pads the last byte with zeros
+        int finish() {
+            if (count > 0) write(0, 8 - count);
+            return pos;
+        }
+    }
+
+    private static class BitReader {
+        private final byte[] in;
+        private final int start;
+        private int pos;
+        private long acc;
+        private int count;
+
+        BitReader(byte[] in, int offset) {
+            this.in = in;
+            this.start = offset;
+            this.pos = offset;
+        }
+
+        int read(int n) {
+            while (count < n) {
+                acc = (acc << 8) | (in[pos++] & 0xFF);
+                count += 8;
+            }
+            count -= n;
+            return (int) ((acc >>> count) & ((1L << n) - 1));
+        }
+
+        // Counts 1 bits up to the terminating 0, or up to max without a terminator
+        int readOnes(int max) {
+            int n = 0;
+            while (n < max && read(1) == 1) n++;
+            return n;
+        }
+
+        int bytesConsumed() {
+            return pos - start;
+        }
+    }
+
+    private void addEntry(long timestamp, long offset) {
+        if (count == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        timestamps[count] = timestamp;
+        offsets[count] = offset;
+        count++;
+    }
+
+    private static float maxDiff(float[][] a, float[][] b) {
+        if (a.length != b.length) return Float.POSITIVE_INFINITY;
+        float max = 0f;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i].length != b[i].length) return Float.POSITIVE_INFINITY;
+            for (int j = 0; j < a[i].length; j++) {
+                max = Math.max(max, Math.abs(a[i][j] - b[i][j]));
+            }
+        }
+        return max;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) throw new IOException("Unexpected end of archive file");
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.fltr;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Preallocated single-producer/single-consumer ring of 16-bit samples. The producer and
+ * consumer each own one position counter and publish it through a volatile write, so
+ * neither side takes a lock or allocates. Exactly one thread may write and one may read.
+ */
+public class ShortRingBuffer {
+    private final short[] data;
+    private final int mask;
+
+    // Total samples ever written/read; indices into data are pos & mask
+    private volatile long writePos;
+    private volatile long readPos;
+
+    private volatile Thread waitingReader;
+    private volatile boolean closed;
+    private volatile long droppedSamples;
+
+    /**
+     * @param minCapacity rounded up to a power of two
+     */
+    public ShortRingBuffer(int minCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, minCapacity) - 1) << 1;
+        data = new short[capacity];
+        mask = capacity - 1;
+    }
+
+    public int capacity() {
+        return data.length;
+    }
+
+    public int available() {
+        return (int) (writePos - readPos);
+    }
+
+    /**
+     * Producer side. Copies as much of src as fits; the rest is dropped and counted.
+     * @return the number of samples written
+     */
+    public int write(short[] src, int offset, int length) {
+        long w = writePos;
+        int free = data.length - (int) (w - readPos);
+        int n = Math.min(length, free);
+
+        int index = (int) (w & mask);
+        int first = Math.min(n, data.length - index);
+        System.arraycopy(src, offset, data, index, first);
+        System.arraycopy(src, offset + first, data, 0, n - first);
+        writePos = w + n;
+
+        if (n < length) droppedSamples += length - n;
+
+        Thread reader = waitingReader;
+        if (reader != null) LockSupport.unpark(reader);
+        return n;
+    }
+
+    /**
+     * Consumer side, non-blocking.
+     * @return the number of samples copied into dst, possibly 0
+     */
+    public int read(short[] dst, int offset, int length) {
+        long r = readPos;
+        int n = Math.min(length, (int) (writePos - r));
+
+        int index = (int) (r & mask);
+        int first = Math.min(n, data.length - index);
+        System.arraycopy(data, index, dst, offset, first);
+        System.arraycopy(data, 0, dst, offset + first, n - first);
+        readPos = r + n;
+        return n;
+    }
+
+    /**
+     * Consumer side. Waits until length samples are available, the buffer is closed or the
+     * timeout passes, then reads what is there.
+     * @return the number of samples copied into dst, which is less than length only on close/timeout
+     */
+    public int read(short[] dst, int offset, int length, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        length = Math.min(length, data.length);
+
+        waitingReader = Thread.currentThread();
+        try {
+            while (available() < length && !closed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || Thread.interrupted()) break;
+                LockSupport.parkNanos(this, remaining);
+            }
+        } finally {
+            waitingReader = null;
+        }
+        return read(dst, offset, length);
+    }
+
+    // Consumer side: drops everything written so far
+    public void discard() {
+        readPos = writePos;
+    }
+
+    // Producer side: no more samples will be written
+    public void close() {
+        closed = true;
+        Thread reader = waitingReader;
+        if (reader != null) LockSupport.unpark(reader);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Samples lost because the consumer fell a full buffer behind
+    public long getDroppedSamples() {
+        return droppedSamples;
+    }
+
+    // Only while neither side is running
+    public void reset() {
+        writePos = 0;
+        readPos = 0;
+        droppedSamples = 0;
+        closed = false;
+    }
+}
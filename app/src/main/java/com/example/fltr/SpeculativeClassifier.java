@@ -0,0 +1,135 @@
+package com.example.fltr;
+
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Classifies the zero-padded MFCC prefix every few frames while the user is still speaking,
+ * so AudioEngine can stop listening as soon as the prediction settles instead of waiting
+ * for trailing silence. Checks run on their own thread so the capture loop never blocks
+ * on the model; a check that would overlap a running one is skipped.
+ */
+public class SpeculativeClassifier {
+    private static final String TAG = "SpeculativeClassifier";
+
+    public static final int DEFAULT_CHECK_EVERY_FRAMES = 10;   // ~116 ms of audio
+    public static final int DEFAULT_MIN_FRAMES = 20;           // don't judge before ~230 ms of speech
+    public static final float DEFAULT_MIN_CONFIDENCE = 0.8f;
+    public static final int DEFAULT_STABLE_CHECKS = 2;
+
+    private final CustomMFCC.InferenceHelper helper;
+    private final int checkEveryFrames;
+    private final int minFrames;
+    private final float minConfidence;
+    private final int stableChecks;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "speculative-inference");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Written by the capture thread only while no check is in flight
+    private final float[] snapshot = new float[CustomMFCC.OUTPUT_SIZE];
+    private volatile boolean busy;
+    private int lastCheckedFrames;
+
+    // Stability of the prediction across consecutive checks, guarded by this
+    private int generation;
+    private int stableIndex = -1;
+    private int stableCount;
+    private CustomMFCC.InferenceResult lastResult;
+    private volatile boolean stable;
+
+    public SpeculativeClassifier(CustomMFCC.InferenceHelper helper) {
+        this(helper, DEFAULT_CHECK_EVERY_FRAMES, DEFAULT_MIN_FRAMES, DEFAULT_MIN_CONFIDENCE, DEFAULT_STABLE_CHECKS);
+    }
+
+    /**
+     * @param checkEveryFrames new MFCC frames between checks
+     * @param minFrames frames needed before the first check
+     * @param minConfidence top-label confidence a check must reach to count as stable
+     * @param stableChecks consecutive stable checks with the same label before isStable()
+     */
+    public SpeculativeClassifier(CustomMFCC.InferenceHelper helper, int checkEveryFrames, int minFrames,
+                                 float minConfidence, int stableChecks) {
+        this.helper = helper;
+        this.checkEveryFrames = Math.max(1, checkEveryFrames);
+        this.minFrames = minFrames;
+        this.minConfidence = minConfidence;
+        this.stableChecks = Math.max(1, stableChecks);
+    }
+
+    // Called by the capture thread at the start of each utterance
+    public synchronized void reset() {
+        generation++;
+        stableIndex = -1;
+        stableCount = 0;
+        lastResult = null;
+        stable = false;
+        lastCheckedFrames = 0;
+    }
+
+    /**
+     * Called by the capture thread after feeding the extractor. Starts a check when enough
+     * new frames have arrived and the previous check has finished.
+     * @param gain normalization the utterance would get if it ended now
+     */
+    public void onFrames(CustomMFCC.StreamingExtractor extractor, float gain) {
+        int frames = extractor.getFrameCount();
+        if (busy || frames < minFrames || frames - lastCheckedFrames < checkEveryFrames) return;
+        if (lastCheckedFrames >= CustomMFCC.TARGET_NUM_FRAMES) return; // input no longer changes
+
+        lastCheckedFrames = frames;
+        extractor.snapshot(gain, snapshot);
+
+        int submittedGeneration;
+        synchronized (this) {
+            submittedGeneration = generation;
+        }
+        busy = true;
+        worker.execute(() -> {
+            try {
+                check(submittedGeneration, frames);
+            } finally {
+                busy = false;
+            }
+        });
+    }
+
+    private void check(int submittedGeneration, int frames) {
+        CustomMFCC.InferenceResult result = helper.runInference(snapshot);
+
+        synchronized (this) {
+            if (submittedGeneration != generation) return; // utterance already ended
+
+            boolean confident = result.matched && result.confidence >= minConfidence;
+            if (confident && result.bestIndex == stableIndex) {
+                stableCount++;
+            } else {
+                stableIndex = confident ? result.bestIndex : -1;
+                stableCount = confident ? 1 : 0;
+            }
+            lastResult = result;
+            stable = stableCount >= stableChecks;
+        }
+
+        Log.d(TAG, "Check at " + frames + " frames: " + result.label + " (" + result.confidence
+                + "), stable " + stableCount + "/" + stableChecks);
+    }
+
+    // True once the top label has held above minConfidence for stableChecks consecutive checks
+    public boolean isStable() {
+        return stable;
+    }
+
+    public synchronized CustomMFCC.InferenceResult getLastResult() {
+        return lastResult;
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.fltr;
+
+/**
+ * Partial selection of the k highest scores without sorting or allocating. The selected
+ * entries are kept in a small descending list and each score is compared against its
+ * tail, so a pass over the model's output is O(n) for typical (peaked) distributions.
+ */
+public class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * Writes the indices and scores of the k highest values of scores[0..length) into
+     * outIndices/outScores in descending order. Ties keep the lower index first, like argmax.
+     * @return the number of entries written, min(k, length, outIndices.length)
+     */
+    public static int select(float[] scores, int length, int k, int[] outIndices, float[] outScores) {
+        k = Math.min(k, Math.min(length, Math.min(outIndices.length, outScores.length)));
+        if (k <= 0) return 0;
+
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            float score = scores[i];
+            if (count == k && !(score > outScores[k - 1])) continue;
+
+            // Shift smaller entries down one slot, dropping the last when full
+            int pos = (count < k) ? count++ : k - 1;
+            while (pos > 0 && score > outScores[pos - 1]) {
+                outScores[pos] = outScores[pos - 1];
+                outIndices[pos] = outIndices[pos - 1];
+                pos--;
+            }
+            outScores[pos] = score;
+            outIndices[pos] = i;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.fltr;
+
+/**
+ * Frame-level voice activity detection for the capture loop. Each chunk is scored on
+ * short-term RMS energy, zero-crossing rate and the share of spectral energy in the
+ * 300-3400 Hz speech band (via the same FftPlan real FFT the MFCC stage uses).
+ *
+ * A chunk counts as speech only if all three agree, so clicks (loud but too short and
+ * broadband) and hiss (high ZCR, little speech-band energy) don't start a recording.
+ * Activity needs ATTACK_FRAMES speech chunks in a row to switch on, and stays on for
+ * a hangover of non-speech chunks afterwards. Once active, the energy threshold drops
+ * by HYSTERESIS so quiet word endings don't flap the state.
+ */
+public class VoiceActivityDetector {
+    public static final int ATTACK_FRAMES = 2;           // ~46 ms of 1024-sample chunks
+    public static final int DEFAULT_HANGOVER_FRAMES = 20; // ~0.46 s
+    public static final float HYSTERESIS = 0.5f;
+    public static final float MIN_BAND_RATIO = 0.3f;
+    public static final float MAX_ZCR = 0.5f;
+
+    private static final float SPEECH_LOW_HZ = 300f;
+    private static final float SPEECH_HIGH_HZ = 3400f;
+
+    private final int frameSize;
+    private final int hangoverFrames;
+    private final int bandLow;
+    private final int bandHigh;
+
+    // Reused FFT scratch
+    private final FftPlan plan;
+    private final float[] frame;
+    private final float[] re;
+    private final float[] im;
+    private final float[] power;
+
+    private float energyThreshold = 1000f; // RMS in 16-bit sample units
+
+    private boolean active;
+    private int speechRun;
+    private int hangover;
+
+    private float lastRms;
+    private float lastZcr;
+    private float lastBandRatio;
+    private boolean lastSpeech;
+
+    public VoiceActivityDetector(int frameSize, int sampleRate) {
+        this(frameSize, sampleRate, DEFAULT_HANGOVER_FRAMES);
+    }
+
+    /**
+     * @param frameSize samples per process() call; a power of two
+     */
+    public VoiceActivityDetector(int frameSize, int sampleRate, int hangoverFrames) {
+        this.frameSize = frameSize;
+        this.hangoverFrames = hangoverFrames;
+        plan = new FftPlan(frameSize);
+        frame = new float[frameSize];
+        re = new float[frameSize / 2];
+        im = new float[frameSize / 2];
+        power = new float[frameSize / 2 + 1];
+
+        float binHz = (float) sampleRate / frameSize;
+        bandLow = Math.max(1, Math.round(SPEECH_LOW_HZ / binHz));
+        bandHigh = Math.min(frameSize / 2, Math.round(SPEECH_HIGH_HZ / binHz));
+    }
+
+    // Energy a chunk must exceed to count as speech while inactive
+    public void setEnergyThreshold(float rms) {
+        energyThreshold = rms;
+    }
+
+    public float getEnergyThreshold() {
+        return energyThreshold;
+    }
+
+    public void reset() {
+        active = false;
+        speechRun = 0;
+        hangover = 0;
+    }
+
+    /**
+     * Scores one chunk of up to frameSize samples and updates the activity state.
+     * @return true while speech is active, including the hangover after it
+     */
+    public boolean process(short[] chunk, int length) {
+        length = Math.min(length, frameSize);
+        lastSpeech = isSpeech(chunk, length);
+
+        if (lastSpeech) {
+            speechRun++;
+            hangover = hangoverFrames;
+            if (!active && speechRun >= ATTACK_FRAMES) active = true;
+        } else {
+            speechRun = 0;
+            if (active) {
+                if (hangover == 0) {
+                    active = false;
+                } else {
+                    hangover--;
+                }
+            }
+        }
+        return active;
+    }
+
+    private boolean isSpeech(short[] chunk, int length) {
+        if (length == 0) {
+            lastRms = lastZcr = lastBandRatio = 0f;
+            return false;
+        }
+
+        double sumSquares = 0;
+        int crossings = 0;
+        for (int i = 0; i < length; i++) {
+            sumSquares += (double) chunk[i] * chunk[i];
+            if (i > 0 && (chunk[i] >= 0) != (chunk[i - 1] >= 0)) crossings++;
+        }
+        lastRms = (float) Math.sqrt(sumSquares / length);
+        lastZcr = (length > 1) ? (float) crossings / (length - 1) : 0f;
+
+        float threshold = active ? energyThreshold * HYSTERESIS : energyThreshold;
+        if (lastRms <= threshold) {
+            lastBandRatio = 0f; // not needed, skip the FFT
+            return false;
+        }
+
+        float[] window = plan.windowF;
+        for (int j = 0; j < frameSize; j++) {
+            frame[j] = (j < length) ? chunk[j] / 32768f * window[j] : 0f;
+        }
+        plan.realPowerSpectrum(frame, re, im, power);
+
+        float total = 0f;
+        float band = 0f;
+        for (int k = 1; k < power.length; k++) {
+            total += power[k];
+            if (k >= bandLow && k <= bandHigh) band += power[k];
+        }
+        lastBandRatio = (total > 0f) ? band / total : 0f;
+
+        return lastBandRatio >= MIN_BAND_RATIO && lastZcr <= MAX_ZCR;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    // Raw decision for the last chunk, before attack/hangover smoothing
+    public boolean wasSpeechFrame() {
+        return lastSpeech;
+    }
+
+    public float getLastRms() {
+        return lastRms;
+    }
+
+    public float getLastZcr() {
+        return lastZcr;
+    }
+
+    public float getLastBandRatio() {
+        return lastBandRatio;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.fltr;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Minimal reader for the 16-bit mono PCM WAV files the app saves to Downloads.
+ * Plain Java so it can also be used from JVM-side tools and tests.
+ */
+public class WavReader {
+
+    public static class WavData {
+        public final short[] samples;
+        public final int sampleRate;
+
+        public WavData(short[] samples, int sampleRate) {
+            this.samples = samples;
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    public static WavData read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    public static WavData read(InputStream in) throws IOException {
+        byte[] header = readFully(in, 12);
+        if (!"RIFF".equals(new String(header, 0, 4, "US-ASCII"))
+                || !"WAVE".equals(new String(header, 8, 4, "US-ASCII"))) {
+            throw new IOException("Not a RIFF/WAVE file.");
+        }
+
+        int sampleRate = -1;
+        int channels = -1;
+        int bitsPerSample = -1;
+
+        // Walk the chunks until "data", picking up the format on the way
+        while (true) {
+            byte[] chunkHeader = readFully(in, 8);
+            String id = new String(chunkHeader, 0, 4, "US-ASCII");
+            int size = ByteBuffer.wrap(chunkHeader, 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+
+            if ("fmt ".equals(id)) {
+                ByteBuffer fmt = ByteBuffer.wrap(readFully(in, size)).order(ByteOrder.LITTLE_ENDIAN);
+                int audioFormat = fmt.getShort(0);
+                channels = fmt.getShort(2);
+                sampleRate = fmt.getInt(4);
+                bitsPerSample = fmt.getShort(14);
+                if (audioFormat != 1) throw new IOException("Only PCM WAV is supported.");
+            } else if ("data".equals(id)) {
+                if (channels != 1 || bitsPerSample != 16) {
+                    throw new IOException("Expected 16-bit mono PCM, got " + channels + " ch / " + bitsPerSample + " bit.");
+                }
+                byte[] pcm = readFully(in, size);
+                short[] samples = new short[size / 2];
+                ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(samples);
+                return new WavData(samples, sampleRate);
+            } else {
+                // Chunks are word-aligned
+                skipFully(in, size + (size & 1));
+            }
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int len) throws IOException {
+        byte[] buf = new byte[len];
+        int off = 0;
+        while (off < len) {
+            int n = in.read(buf, off, len - off);
+            if (n < 0) throw new IOException("Unexpected end of WAV file.");
+            off += n;
+        }
+        return buf;
+    }
+
+    private static void skipFully(InputStream in, long len) throws IOException {
+        while (len > 0) {
+            long n = in.skip(len);
+            if (n <= 0) {
+                if (in.read() < 0) throw new IOException("Unexpected end of WAV file.");
+                n = 1;
+            }
+            len -= n;
+        }
+    }
+}
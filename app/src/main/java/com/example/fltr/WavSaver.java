@@ -0,0 +1,88 @@
+package com.example.fltr;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Saves the last recording to Downloads as a WAV file on a background I/O thread, so the
+ * UI thread only starts the save and shows the result. Saves run one at a time in order.
+ */
+public class WavSaver {
+    private static final String TAG = "WavSaver";
+
+    private static final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "wav-io");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Called on the I/O thread
+    public interface Callback {
+        void onSaved(String fileName);
+        void onError(Exception e);
+    }
+
+    private WavSaver() {
+    }
+
+    public static void saveLastRecording(Context context, AudioEngine audioEngine, Callback callback) {
+        ContentResolver resolver = context.getApplicationContext().getContentResolver();
+        io.execute(() -> {
+            // Builds the normalized bytes here rather than on the caller's thread
+            byte[] pcmBytes = audioEngine.getLastTrimmedPcm();
+            if (pcmBytes == null) {
+                callback.onError(new IllegalStateException("No recording available."));
+                return;
+            }
+
+            try {
+                callback.onSaved(save(resolver, pcmBytes));
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to save WAV", e);
+                callback.onError(e);
+            }
+        });
+    }
+
+    private static String save(ContentResolver resolver, byte[] pcmBytes) throws IOException {
+        String fileName = "recording_" + System.currentTimeMillis() + ".wav";
+
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.Downloads.DISPLAY_NAME, fileName);
+        values.put(MediaStore.Downloads.MIME_TYPE, "audio/wav");
+        values.put(MediaStore.Downloads.IS_PENDING, 1);
+
+        Uri downloads = MediaStore.Downloads.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY);
+        Uri fileUri = resolver.insert(downloads, values);
+        if (fileUri == null) throw new IOException("Failed to create file.");
+
+        try {
+            // Opened "rw" so the writer can seek back and patch the header sizes
+            ParcelFileDescriptor pfd = resolver.openFileDescriptor(fileUri, "rw");
+            if (pfd == null) throw new IOException("File descriptor is null.");
+            try (FileOutputStream out = new ParcelFileDescriptor.AutoCloseOutputStream(pfd);
+                 WavWriter writer = new WavWriter(out.getChannel(), AudioEngine.SAMPLE_RATE)) {
+                writer.write(pcmBytes, 0, pcmBytes.length);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Don't leave a pending, half-written entry behind
+            resolver.delete(fileUri, null, null);
+            throw e;
+        }
+
+        values.clear();
+        values.put(MediaStore.Downloads.IS_PENDING, 0);
+        resolver.update(fileUri, values, null, null);
+        return fileName;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.fltr;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streaming writer for 16-bit mono PCM WAV, the format WavReader reads back. The 44-byte
+ * header goes out in one write with the sizes left at zero; samples are then appended in
+ * CHUNK_BYTES pieces through one reused buffer, so audio can be written as it arrives, and
+ * close() patches the RIFF and data sizes in place. Plain Java like WavReader.
+ */
+public class WavWriter implements Closeable {
+    public static final int HEADER_SIZE = 44;
+    public static final int CHUNK_BYTES = 16 * 1024;
+
+    private static final int RIFF_SIZE_OFFSET = 4;
+    private static final int DATA_SIZE_OFFSET = 40;
+
+    private final FileChannel channel;
+    private final long start;
+    private final ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private long dataBytes;
+    private boolean closed;
+
+    /**
+     * Writes the header at the channel's current position. The channel must be seekable
+     * (a file) so the sizes can be patched on close; it is closed by close().
+     */
+    public WavWriter(FileChannel channel, int sampleRate) throws IOException {
+        this.channel = channel;
+        start = channel.position();
+        writeFully(ByteBuffer.wrap(header(sampleRate, 1, 16, 0)));
+    }
+
+    // Appends samples[offset..offset+length)
+    public void write(short[] samples, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            chunk.clear();
+            int n = Math.min(end - offset, CHUNK_BYTES / 2);
+            chunk.asShortBuffer().put(samples, offset, n);
+            chunk.limit(n * 2);
+            writeFully(chunk);
+            offset += n;
+        }
+        dataBytes += length * 2L;
+    }
+
+    // Appends already little-endian 16-bit PCM
+    public void write(byte[] pcm, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            int n = Math.min(end - offset, CHUNK_BYTES);
+            writeFully(ByteBuffer.wrap(pcm, offset, n));
+            offset += n;
+        }
+        dataBytes += length;
+    }
+
+    public long getDataBytes() {
+        return dataBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            ByteBuffer size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            size.putInt(0, (int) (36 + dataBytes));
+            writeAt(size, start + RIFF_SIZE_OFFSET);
+            size.clear();
+            size.putInt(0, (int) dataBytes);
+            writeAt(size, start + DATA_SIZE_OFFSET);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Canonical 44-byte PCM WAV header for dataBytes of audio.
+     */
+    public static byte[] header(int sampleRate, int channels, int bitsPerSample, int dataBytes) {
+        int blockAlign = channels * bitsPerSample / 8;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+        header.putInt(36 + dataBytes);
+        header.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+        header.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+        header.putInt(16);                          // fmt chunk size
+        header.putShort((short) 1);                 // PCM
+        header.putShort((short) channels);
+        header.putInt(sampleRate);
+        header.putInt(sampleRate * blockAlign);     // byte rate
+        header.putShort((short) blockAlign);
+        header.putShort((short) bitsPerSample);
+        header.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+        header.putInt(dataBytes);
+        return header.array();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private void writeAt(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the batch pipeline end to end on generated WAVs with a stand-in model, so the
+ * extraction pool, batching and CSV output are covered without the TFLite runtime.
+ */
+public class BatchScorerTest {
+    private static final int SAMPLE_RATE = 44100;
+
+    // Scores label 0 for quiet files and label 1 for loud ones, using c0 of the first frame
+    private static class StubModel implements BatchScorer.Model {
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public int numLabels() {
+            return 2;
+        }
+
+        @Override
+        public void run(FloatBuffer input, int batchSize, float[] output) {
+            batchSizes.add(batchSize);
+            for (int b = 0; b < batchSize; b++) {
+                float c0 = input.get(b * CustomMFCC.OUTPUT_SIZE);
+                output[b * 2] = c0 < -700f ? 0.9f : 0.1f;
+                output[b * 2 + 1] = 1f - output[b * 2];
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void score_batchesFilesInOrderAndWritesCsv() throws IOException {
+        File dir = Files.createTempDirectory("batch").toFile();
+        List<File> wavs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            wavs.add(writeTone(new File(dir, "tone_" + i + ".wav"), (i % 2 == 0) ? 0.001 : 0.5));
+        }
+
+        StubModel model = new StubModel();
+        List<BatchScorer.Row> rows = new BatchScorer(model, Arrays.asList("quiet", "loud"), 2, 2).score(wavs);
+
+        assertEquals(Arrays.asList(2, 2, 1), model.batchSizes);
+        assertEquals(5, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            BatchScorer.Row row = rows.get(i);
+            assertEquals("tone_" + i + ".wav", row.file);
+            assertEquals((i % 2 == 0) ? "quiet" : "loud", row.label);
+            assertEquals(0.9f, row.confidence, 1e-6f);
+            assertEquals(CustomMFCC.frameCount(SAMPLE_RATE / 2), row.frames);
+        }
+
+        StringWriter csv = new StringWriter();
+        BatchScorer.writeCsv(rows, csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals(6, lines.length);
+        assertTrue(lines[0].startsWith("file,label_index,label,confidence"));
+        assertTrue(lines[2].startsWith("tone_1.wav,1,loud,0.900000,"));
+        assertTrue(lines[2].endsWith(","));
+    }
+
+    @Test
+    public void score_rejectsOtherSampleRatesAndKeepsTheirRows() throws IOException {
+        File dir = Files.createTempDirectory("batch").toFile();
+        List<File> wavs = Arrays.asList(
+                writeTone(new File(dir, "a.wav"), 0.5),
+                writeTone(new File(dir, "b_16k.wav"), 0.5, 16000),
+                writeTone(new File(dir, "c.wav"), 0.001),
+                writeTone(new File(dir, "d_48k.wav"), 0.5, 48000));
+
+        StubModel model = new StubModel();
+        List<BatchScorer.Row> rows = new BatchScorer(model, Arrays.asList("quiet", "loud"), 2, 2).score(wavs);
+
+        // Only the two 44.1 kHz files reach the model, in one batch
+        assertEquals(Arrays.asList(2), model.batchSizes);
+        assertEquals(4, rows.size());
+        assertEquals("loud", rows.get(0).label);
+        assertNull(rows.get(0).rejected);
+        assertEquals("quiet", rows.get(2).label);
+
+        assertEquals("b_16k.wav", rows.get(1).file);
+        assertEquals(-1, rows.get(1).bestIndex);
+        assertEquals("sample rate 16000 Hz, expected 44100", rows.get(1).rejected);
+        assertEquals("sample rate 48000 Hz, expected 44100", rows.get(3).rejected);
+
+        StringWriter csv = new StringWriter();
+        BatchScorer.writeCsv(rows, csv);
+        assertTrue(csv.toString().split("\n")[2].endsWith(",\"sample rate 16000 Hz, expected 44100\""));
+    }
+
+    // Half a second of 440 Hz at the given amplitude (fraction of full scale)
+    private static File writeTone(File file, double amplitude) throws IOException {
+        return writeTone(file, amplitude, SAMPLE_RATE);
+    }
+
+    private static File writeTone(File file, double amplitude, int sampleRate) throws IOException {
+        int samples = sampleRate / 2;
+        ByteBuffer wav = ByteBuffer.allocate(44 + samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes("US-ASCII")).putInt(36 + samples * 2).put("WAVE".getBytes("US-ASCII"));
+        wav.put("fmt ".getBytes("US-ASCII")).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(sampleRate).putInt(sampleRate * 2)
+                .putShort((short) 2).putShort((short) 16);
+        wav.put("data".getBytes("US-ASCII")).putInt(samples * 2);
+        for (int i = 0; i < samples; i++) {
+            wav.putShort((short) (amplitude * 32767 * Math.sin(2 * Math.PI * 440 * i / sampleRate)));
+        }
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(wav.array());
+        }
+        return file;
+    }
+}
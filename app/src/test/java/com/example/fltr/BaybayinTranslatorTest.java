@@ -0,0 +1,93 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The trie-based translator against the previous regex + substring implementation, over
+ * every label the model can emit and some awkward inputs.
+ */
+public class BaybayinTranslatorTest {
+
+    @Test
+    public void matchesPreviousTranslatorOnAllLabels() throws IOException {
+        List<String> words = new ArrayList<>(labels());
+        words.addAll(Arrays.asList("", "Salamat!", "NGAYON", "ng", "mga", "a-b c", "xyz", "kaibigan2", "fjqvz"));
+
+        String[] baybayin = BaybayinTranslator.translateAll(words);
+        String[] syllables = BaybayinTranslator.segmentAll(words);
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            assertEquals(word, referenceTranslate(word), baybayin[i]);
+            assertEquals(word, referenceSegment(word), syllables[i]);
+        }
+    }
+
+    @Test
+    public void knownWords() {
+        assertEquals("ᜐᜎᜋᜆ᜔", BaybayinTranslator.translateToBaybayin("salamat"));
+        assertEquals("ᜅᜌᜓᜈ᜔", BaybayinTranslator.translateToBaybayin("Ngayon"));
+        assertEquals("sa · la · ma · t", BaybayinTranslator.segmentSyllables("salamat"));
+        assertEquals("", BaybayinTranslator.segmentSyllables(null));
+    }
+
+    // labels.txt from the app's assets when run from the module directory, as Gradle does
+    private static List<String> labels() throws IOException {
+        File file = new File("src/main/assets/labels.txt");
+        if (!file.exists()) return new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) labels.add(line.trim());
+        }
+        return labels;
+    }
+
+    // The translator before the trie: greedy 3/2/1-letter HashMap probes on substrings
+    private static String referenceTranslate(String word) {
+        word = word.toLowerCase().replaceAll("[^a-z]", "");
+        StringBuilder result = new StringBuilder();
+        int i = 0;
+        while (i < word.length()) {
+            if (i + 2 < word.length() && BaybayinTranslator.baybayinMap.containsKey(word.substring(i, i + 3))) {
+                result.append(BaybayinTranslator.baybayinMap.get(word.substring(i, i + 3)));
+                i += 3;
+            } else if (i + 1 < word.length() && BaybayinTranslator.baybayinMap.containsKey(word.substring(i, i + 2))) {
+                result.append(BaybayinTranslator.baybayinMap.get(word.substring(i, i + 2)));
+                i += 2;
+            } else {
+                String one = word.substring(i, i + 1);
+                result.append(BaybayinTranslator.baybayinMap.containsKey(one) ? BaybayinTranslator.baybayinMap.get(one) : one);
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
+    // The screens' syllabifier before it moved into the translator
+    private static String referenceSegment(String word) {
+        String w = word.toLowerCase().replaceAll("[^a-z]", "");
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        while (i < w.length()) {
+            int length = 1;
+            if (i + 2 < w.length() && BaybayinTranslator.baybayinMap.containsKey(w.substring(i, i + 3))) {
+                length = 3;
+            } else if (i + 1 < w.length() && BaybayinTranslator.baybayinMap.containsKey(w.substring(i, i + 2))) {
+                length = 2;
+            }
+            if (out.length() > 0) out.append(" · ");
+            out.append(w, i, i + length);
+            i += length;
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the real-input FFT path against the full complex transform it replaces.
+ */
+public class FftPlanTest {
+    private static final int FFT_SIZE = 2048;
+
+    @Test
+    public void realPowerSpectrum_matchesComplexPath() {
+        FftPlan plan = new FftPlan(FFT_SIZE);
+        Random random = new Random(42);
+
+        for (int trial = 0; trial < 20; trial++) {
+            float[] frame = new float[FFT_SIZE];
+            for (int j = 0; j < FFT_SIZE; j++) {
+                frame[j] = (float) (random.nextGaussian() * plan.window[j]);
+            }
+
+            double[] expected = new double[FFT_SIZE / 2 + 1];
+            plan.complexPowerSpectrum(frame, new double[FFT_SIZE], new double[FFT_SIZE], expected);
+
+            double[] actual = new double[FFT_SIZE / 2 + 1];
+            plan.realPowerSpectrum(frame, new double[FFT_SIZE / 2], new double[FFT_SIZE / 2], actual);
+
+            for (int k = 0; k < expected.length; k++) {
+                assertEquals("bin " + k, expected[k], actual[k], 1e-9 * Math.max(1.0, expected[k]));
+            }
+        }
+    }
+
+    @Test
+    public void realPowerSpectrum_pureToneLandsInItsBin() {
+        FftPlan plan = new FftPlan(FFT_SIZE);
+        int bin = 100;
+        float[] frame = new float[FFT_SIZE];
+        for (int j = 0; j < FFT_SIZE; j++) {
+            frame[j] = (float) Math.cos(2 * Math.PI * bin * j / FFT_SIZE);
+        }
+
+        double[] power = new double[FFT_SIZE / 2 + 1];
+        plan.realPowerSpectrum(frame, new double[FFT_SIZE / 2], new double[FFT_SIZE / 2], power);
+
+        // |X[bin]| = N/2, so power = (N/2)^2 / N = N/4
+        assertEquals(FFT_SIZE / 4.0, power[bin], 1e-6);
+        assertEquals(0.0, power[bin + 1], 1e-6);
+    }
+}
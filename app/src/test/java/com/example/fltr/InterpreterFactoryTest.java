@@ -0,0 +1,135 @@
+package com.example.fltr;
+
+import android.content.SharedPreferences;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Backend selection and its persistence, with the benchmark replaced by fixed timings so
+ * no TFLite runtime is needed.
+ */
+public class InterpreterFactoryTest {
+
+    @Test
+    public void fastestBackend_isPersistedAndReusedWithoutBenchmarking() {
+        FakePreferences prefs = new FakePreferences();
+        FakeTimer timer = new FakeTimer(timings(InterpreterFactory.Backend.CPU, 9f,
+                InterpreterFactory.Backend.XNNPACK, 3f, InterpreterFactory.Backend.NNAPI, 5f));
+
+        assertEquals(InterpreterFactory.Backend.XNNPACK, InterpreterFactory.preferredBackend(prefs, "FLOAT32", timer));
+        assertEquals(1, timer.calls.size());
+        assertEquals("XNNPACK", prefs.values.get("backend_FLOAT32"));
+
+        assertEquals(InterpreterFactory.Backend.XNNPACK, InterpreterFactory.preferredBackend(prefs, "FLOAT32", timer));
+        assertEquals(1, timer.calls.size());
+
+        // Another variant keeps its own choice
+        InterpreterFactory.preferredBackend(prefs, "INT8", timer);
+        assertEquals(2, timer.calls.size());
+    }
+
+    @Test
+    public void noBackendLoads_fallsBackToCpu() {
+        FakePreferences prefs = new FakePreferences();
+        FakeTimer timer = new FakeTimer(new EnumMap<>(InterpreterFactory.Backend.class));
+
+        assertEquals(InterpreterFactory.Backend.CPU, InterpreterFactory.preferredBackend(prefs, "FLOAT32", timer));
+        assertEquals("CPU", prefs.values.get("backend_FLOAT32"));
+    }
+
+    @Test
+    public void gpu_isNeverBenchmarkedOrSelected() {
+        FakePreferences prefs = new FakePreferences();
+        FakeTimer timer = new FakeTimer(timings(InterpreterFactory.Backend.CPU, 9f,
+                InterpreterFactory.Backend.GPU, 1f));
+
+        assertEquals(InterpreterFactory.Backend.CPU, InterpreterFactory.preferredBackend(prefs, "FLOAT32", timer));
+        assertFalse(Arrays.asList(timer.calls.get(0)).contains(InterpreterFactory.Backend.GPU));
+    }
+
+    @Test
+    public void storedGpuOrUnknownBackend_isReselected() {
+        FakePreferences prefs = new FakePreferences();
+        FakeTimer timer = new FakeTimer(timings(InterpreterFactory.Backend.NNAPI, 2f));
+
+        // Written by a build that still auto-selected GPU
+        prefs.values.put("backend_FLOAT32", "GPU");
+        assertEquals(InterpreterFactory.Backend.NNAPI, InterpreterFactory.preferredBackend(prefs, "FLOAT32", timer));
+        assertEquals("NNAPI", prefs.values.get("backend_FLOAT32"));
+
+        prefs.values.put("backend_FLOAT32", "TPU");
+        assertEquals(InterpreterFactory.Backend.NNAPI, InterpreterFactory.preferredBackend(prefs, "FLOAT32", timer));
+        assertEquals(2, timer.calls.size());
+    }
+
+    private static Map<InterpreterFactory.Backend, Float> timings(Object... backendsAndMs) {
+        Map<InterpreterFactory.Backend, Float> timings = new EnumMap<>(InterpreterFactory.Backend.class);
+        for (int i = 0; i < backendsAndMs.length; i += 2) {
+            timings.put((InterpreterFactory.Backend) backendsAndMs[i], (Float) backendsAndMs[i + 1]);
+        }
+        return timings;
+    }
+
+    // Returns the same timings for whichever of them it is asked about, recording each request
+    private static class FakeTimer implements InterpreterFactory.BackendTimer {
+        final Map<InterpreterFactory.Backend, Float> timings;
+        final List<InterpreterFactory.Backend[]> calls = new ArrayList<>();
+
+        FakeTimer(Map<InterpreterFactory.Backend, Float> timings) {
+            this.timings = timings;
+        }
+
+        @Override
+        public Map<InterpreterFactory.Backend, Float> time(InterpreterFactory.Backend[] backends) {
+            calls.add(backends);
+            Map<InterpreterFactory.Backend, Float> result = new EnumMap<>(InterpreterFactory.Backend.class);
+            for (InterpreterFactory.Backend backend : backends) {
+                if (timings.containsKey(backend)) result.put(backend, timings.get(backend));
+            }
+            return result;
+        }
+    }
+
+    // In-memory SharedPreferences; edits apply immediately
+    private static class FakePreferences implements SharedPreferences, SharedPreferences.Editor {
+        final Map<String, Object> values = new HashMap<>();
+
+        @Override public Map<String, ?> getAll() { return values; }
+        @Override public String getString(String key, String defValue) { return (String) get(key, defValue); }
+        @SuppressWarnings("unchecked")
+        @Override public Set<String> getStringSet(String key, Set<String> defValues) { return (Set<String>) get(key, defValues); }
+        @Override public int getInt(String key, int defValue) { return (Integer) get(key, defValue); }
+        @Override public long getLong(String key, long defValue) { return (Long) get(key, defValue); }
+        @Override public float getFloat(String key, float defValue) { return (Float) get(key, defValue); }
+        @Override public boolean getBoolean(String key, boolean defValue) { return (Boolean) get(key, defValue); }
+        @Override public boolean contains(String key) { return values.containsKey(key); }
+        @Override public Editor edit() { return this; }
+        @Override public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) { }
+        @Override public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) { }
+
+        @Override public Editor putString(String key, String value) { values.put(key, value); return this; }
+        @Override public Editor putStringSet(String key, Set<String> value) { values.put(key, value); return this; }
+        @Override public Editor putInt(String key, int value) { values.put(key, value); return this; }
+        @Override public Editor putLong(String key, long value) { values.put(key, value); return this; }
+        @Override public Editor putFloat(String key, float value) { values.put(key, value); return this; }
+        @Override public Editor putBoolean(String key, boolean value) { values.put(key, value); return this; }
+        @Override public Editor remove(String key) { values.remove(key); return this; }
+        @Override public Editor clear() { values.clear(); return this; }
+        @Override public boolean commit() { return true; }
+        @Override public void apply() { }
+
+        private Object get(String key, Object defValue) {
+            return values.containsKey(key) ? values.get(key) : defValue;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Binary round trip, rotation and the offline converters of the MFCC debug dump.
+ */
+public class MfccDumpTest {
+
+    @Test
+    public void disabledByDefault_writesNothing() throws Exception {
+        File dir = Files.createTempDirectory("mfcc_dump").toFile();
+        MfccDump dump = new MfccDump(dir, 10, 2);
+
+        dump.submit(result(1f));
+        dump.flush();
+        assertTrue(MfccDump.listDumps(dir).isEmpty());
+    }
+
+    @Test
+    public void missingDirectory_dropsRecordsWithoutThrowing() throws Exception {
+        // As when external storage is unmounted; the writer thread must survive
+        MfccDump dump = new MfccDump(null, 10, 2);
+        dump.setEnabled(true);
+        dump.submit(result(1f));
+        dump.flush();
+
+        File parent = Files.createTempFile("not_a_dir", ".bin").toFile();
+        MfccDump blocked = new MfccDump(new File(parent, "mfcc_dump"), 10, 2);
+        blocked.setEnabled(true);
+        blocked.submit(result(1f));
+        blocked.submit(result(2f));
+        blocked.flush();
+        assertTrue(MfccDump.listDumps(new File(parent, "mfcc_dump")).isEmpty());
+    }
+
+    @Test
+    public void rotatesAndKeepsNewestFiles() throws Exception {
+        File dir = Files.createTempDirectory("mfcc_dump").toFile();
+        MfccDump dump = new MfccDump(dir, 2, 2);
+        dump.setEnabled(true);
+
+        for (int i = 0; i < 5; i++) {
+            dump.submit(result(i));
+            dump.flush(); // the queue is bounded; flushing keeps every record in this test
+        }
+
+        // Records 0-1, 2-3 and 4 went to three files; the oldest was deleted
+        List<File> files = MfccDump.listDumps(dir);
+        assertEquals(2, files.size());
+
+        List<MfccDump.Record> newer = MfccDump.read(files.get(1));
+        assertEquals(1, newer.size());
+        assertEquals(4f, newer.get(0).mfcc[0][0], 0f);
+        assertEquals(CustomMFCC.TARGET_NUM_FRAMES, newer.get(0).mfcc.length);
+        assertEquals(100, newer.get(0).originalFrameCount);
+        assertEquals(0f, newer.get(0).mfcc[100][0], 0f); // zero padding after the utterance
+
+        List<MfccDump.Record> older = MfccDump.read(files.get(0));
+        assertEquals(2, older.size());
+        assertEquals(2f, older.get(0).mfcc[0][0], 0f);
+        assertEquals(3f + 0.5f, older.get(1).mfcc[1][3], 0f);
+    }
+
+    @Test
+    public void convertsToTextAndNpy() throws Exception {
+        File dir = Files.createTempDirectory("mfcc_dump").toFile();
+        MfccDump dump = new MfccDump(dir, 10, 2);
+        dump.setEnabled(true);
+        dump.submit(result(7f));
+        dump.submit(result(8f));
+        dump.flush();
+        File bin = MfccDump.listDumps(dir).get(0);
+
+        StringWriter text = new StringWriter();
+        MfccDump.toText(bin, text);
+        String[] lines = text.toString().split("\n");
+        assertEquals(2 * (CustomMFCC.TARGET_NUM_FRAMES + 1), lines.length);
+        assertTrue(lines[0].startsWith("# "));
+        assertEquals(CustomMFCC.NUM_MFCC, lines[1].split(" ").length);
+        assertTrue(lines[1].startsWith("7.0 "));
+
+        File npy = new File(dir, "out.npy");
+        MfccDump.toNpy(bin, npy);
+        byte[] bytes = Files.readAllBytes(npy.toPath());
+        assertEquals((byte) 0x93, bytes[0]);
+        assertEquals("NUMPY", new String(bytes, 1, 5, "US-ASCII"));
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int headerLength = buffer.getShort(8);
+        String header = new String(bytes, 10, headerLength, "US-ASCII");
+        assertTrue(header.contains("'shape': (2, " + CustomMFCC.TARGET_NUM_FRAMES + ", " + CustomMFCC.NUM_MFCC + ")"));
+        assertEquals(0, (10 + headerLength) % 64);
+
+        int dataStart = 10 + headerLength;
+        assertEquals(dataStart + 2 * CustomMFCC.OUTPUT_SIZE * 4, bytes.length);
+        assertEquals(7f, buffer.getFloat(dataStart), 0f);
+        assertEquals(8f, buffer.getFloat(dataStart + CustomMFCC.OUTPUT_SIZE * 4), 0f);
+    }
+
+    @Test
+    public void read_rejectsOtherFiles() throws IOException {
+        File file = Files.createTempFile("not_a_dump", ".bin").toFile();
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        try {
+            MfccDump.read(file);
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+
+    // Every coefficient of frame i is base + i * 0.5, so records and frames are distinguishable
+    private static CustomMFCC.MfccResult result(float base) {
+        int frames = 100;
+        float[] mfcc = new float[frames * CustomMFCC.NUM_MFCC];
+        for (int i = 0; i < mfcc.length; i++) {
+            mfcc[i] = base + (i / CustomMFCC.NUM_MFCC) * 0.5f;
+        }
+        return new CustomMFCC.MfccResult(mfcc, frames, 44100);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Convergence and robustness of the online noise-floor estimate.
+ */
+public class NoiseFloorTrackerTest {
+    private static final int CHUNKS_PER_SECOND = 43; // 1024-sample chunks at 44.1 kHz
+
+    @Test
+    public void followsQuietRoomQuicklyAndNoisyRoomWithinSeconds() {
+        NoiseFloorTracker tracker = new NoiseFloorTracker(1667f);
+
+        feed(tracker, 300f, CHUNKS_PER_SECOND / 2);
+        assertEquals(300f, tracker.getNoiseFloor(), 15f);
+        assertEquals(300f * NoiseFloorTracker.SNR_FACTOR, tracker.getThreshold(), 40f);
+
+        feed(tracker, 900f, 5 * CHUNKS_PER_SECOND);
+        assertEquals(900f, tracker.getNoiseFloor(), 90f);
+        assertTrue(tracker.getThresholdChanges() >= 2);
+    }
+
+    @Test
+    public void shortLoudBurstsBarelyMoveTheFloor() {
+        NoiseFloorTracker tracker = new NoiseFloorTracker(1000f);
+        feed(tracker, 200f, CHUNKS_PER_SECOND);
+
+        for (int i = 0; i < CHUNKS_PER_SECOND; i++) {
+            tracker.update((i % 10 == 0) ? 20000f : 200f);
+        }
+        assertEquals(200f, tracker.getNoiseFloor(), 10f);
+    }
+
+    @Test
+    public void thresholdNeverDropsBelowMinimum() {
+        NoiseFloorTracker tracker = new NoiseFloorTracker(1000f);
+        feed(tracker, 5f, CHUNKS_PER_SECOND);
+        assertEquals(NoiseFloorTracker.MIN_THRESHOLD, tracker.getThreshold(), 0f);
+    }
+
+    private static void feed(NoiseFloorTracker tracker, float rms, int chunks) {
+        for (int i = 0; i < chunks; i++) tracker.update(rms);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * The range split must give exactly the serial output, however the frames are divided.
+ */
+public class ParallelMfccExtractorTest {
+
+    @Test
+    public void extract_matchesSerialAtAnyWorkerCount() {
+        short[] pcm = utterance(CustomMFCC.MAX_RECORD_SAMPLES);
+        float[] expected = new float[CustomMFCC.OUTPUT_SIZE];
+        int expectedFrames = CustomMFCC.extractMFCCs(pcm, pcm.length, new CustomMFCC.MfccWorkspace(), expected);
+
+        for (int workers : new int[]{1, 2, 3, 8}) {
+            ParallelMfccExtractor extractor = new ParallelMfccExtractor(workers);
+            try {
+                float[] out = new float[CustomMFCC.OUTPUT_SIZE];
+                assertEquals(expectedFrames, extractor.extract(pcm, pcm.length, out));
+                assertArrayEquals("workers " + workers, expected, out, 0f);
+            } finally {
+                extractor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void extract_shortUtteranceIsZeroPadded() {
+        short[] pcm = utterance(8192);
+        float[] expected = new float[CustomMFCC.OUTPUT_SIZE];
+        CustomMFCC.extractMFCCs(pcm, pcm.length, new CustomMFCC.MfccWorkspace(), expected);
+
+        ParallelMfccExtractor extractor = new ParallelMfccExtractor(4);
+        try {
+            float[] out = new float[CustomMFCC.OUTPUT_SIZE];
+            Arrays.fill(out, 1f);
+            extractor.extract(pcm, pcm.length, out);
+            assertArrayEquals(expected, out, 0f);
+        } finally {
+            extractor.shutdown();
+        }
+    }
+
+    @Test
+    public void fullLengthExtraction_keepsFramesPastTheModelInput() {
+        // Longer than TARGET_NUM_FRAMES so extractMFCCs(short[]) takes the parallel path untruncated
+        short[] pcm = utterance(CustomMFCC.MAX_RECORD_SAMPLES * 2);
+        CustomMFCC.MfccResult result = CustomMFCC.extractMFCCs(pcm);
+        assertTrue(result.originalFrameCount > CustomMFCC.TARGET_NUM_FRAMES);
+
+        float[] expected = new float[CustomMFCC.OUTPUT_SIZE];
+        CustomMFCC.extractMFCCs(pcm, pcm.length, new CustomMFCC.MfccWorkspace(), expected);
+        for (int i = 0; i < CustomMFCC.OUTPUT_SIZE; i++) {
+            assertEquals("value " + i, expected[i], result.frames[i], 0f);
+        }
+    }
+
+    private static short[] utterance(int length) {
+        Random random = new Random(7);
+        short[] pcm = new short[length];
+        for (int i = 0; i < length; i++) {
+            pcm[i] = (short) (8000 * Math.sin(i * 0.03) * Math.sin(i * 0.0005) + random.nextGaussian() * 300);
+        }
+        return pcm;
+    }
+}
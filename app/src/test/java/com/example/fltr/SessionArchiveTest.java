@@ -0,0 +1,144 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * PCM codec, append/read/seek, crash recovery and replay of the session archive.
+ */
+public class SessionArchiveTest {
+    private static final int SAMPLE_RATE = 44100;
+
+    @Test
+    public void pcmCodec_isLosslessIncludingExtremes() {
+        Random random = new Random(5);
+        short[] samples = new short[3 * 4096 + 100];
+        for (int i = 0; i < 5000; i++) {
+            samples[i] = (short) random.nextInt(65536);
+        }
+        samples[0] = Short.MIN_VALUE;
+        samples[1] = Short.MAX_VALUE;
+        samples[2] = Short.MIN_VALUE;
+
+        // Near-silence with full-scale clicks, which the quiet blocks' Rice parameter can't cover
+        for (int i = 5000; i < samples.length; i++) {
+            samples[i] = (short) (random.nextInt(7) - 3);
+        }
+        samples[9000] = Short.MAX_VALUE;
+        samples[9001] = Short.MIN_VALUE;
+        samples[samples.length - 1] = Short.MIN_VALUE;
+
+        byte[] coded = new byte[SessionArchive.maxEncodedBytes(samples.length)];
+        int bytes = SessionArchive.encodePcm(samples, samples.length, coded);
+        short[] decoded = new short[samples.length];
+        assertEquals(bytes, SessionArchive.decodePcm(coded, 0, decoded, samples.length));
+        assertArrayEquals(samples, decoded);
+    }
+
+    @Test
+    public void pcmCodec_compressesSpeechLikeAudio() {
+        short[] samples = voiced(SAMPLE_RATE);
+        byte[] coded = new byte[SessionArchive.maxEncodedBytes(samples.length)];
+        int bytes = SessionArchive.encodePcm(samples, samples.length, coded);
+        assertTrue("coded " + bytes + " of " + samples.length * 2, bytes < samples.length * 2 * 0.8);
+    }
+
+    @Test
+    public void appendReadSeekAndReopen() throws Exception {
+        File dir = Files.createTempDirectory("sessions").toFile();
+        SessionArchive archive = new SessionArchive(dir, "s");
+        for (int i = 0; i < 3; i++) {
+            archive.append(record(1000 + i * 10, i));
+            archive.flush();
+        }
+        assertEquals(3, archive.size());
+
+        SessionArchive.Record second = archive.read(1);
+        assertEquals(1010, second.timestamp);
+        assertEquals("label_1", second.label);
+        assertEquals(1, second.bestIndex);
+        assertEquals(0.5f, second.confidence, 0f);
+        assertEquals(12f, second.inferenceMs, 0f);
+        assertArrayEquals(voiced(4000 + 1), second.samples);
+        assertEquals(1.5f, second.mfcc[3][2], 0f);
+
+        assertEquals(1, archive.indexOf(1010));
+        assertEquals(2, archive.indexOf(1011));
+        assertEquals(3, archive.indexOf(5000));
+        archive.close();
+
+        // Simulate a crash mid-append: a partial record with no index entry
+        try (RandomAccessFile data = new RandomAccessFile(new File(dir, "s.dat"), "rw")) {
+            data.seek(data.length());
+            data.write(new byte[]{100, 0, 0, 0, 1, 2, 3});
+        }
+        SessionArchive reopened = new SessionArchive(dir, "s");
+        assertEquals(3, reopened.size());
+        reopened.append(record(2000, 3));
+        reopened.flush();
+        assertEquals(4, reopened.size());
+        assertEquals("label_3", reopened.read(3).label);
+        assertEquals("label_2", reopened.read(2).label);
+        reopened.close();
+    }
+
+    @Test
+    public void missingDirectory_failsWithIOException() {
+        // getExternalFilesDir() returns null while external storage is unmounted
+        try {
+            new SessionArchive(null, "s");
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void replayMfcc_reproducesCapturedFeatures() {
+        short[] samples = voiced(SAMPLE_RATE / 2);
+        float gain = 2.5f;
+
+        // As AudioEngine does: stream while capturing, then finish with the peak gain
+        CustomMFCC.StreamingExtractor live = new CustomMFCC.StreamingExtractor();
+        for (int offset = 0; offset < samples.length; offset += 1024) {
+            live.accept(samples, offset, Math.min(1024, samples.length - offset));
+        }
+        CustomMFCC.MfccResult captured = live.finish(gain);
+
+        SessionArchive.Record record = new SessionArchive.Record(0, samples, gain, captured.paddedMfcc(),
+                captured.originalFrameCount, 0, "x", 1f, 0f, 0f, 0f);
+        CustomMFCC.MfccResult replayed = SessionArchive.replayMfcc(record);
+        assertEquals(captured.originalFrameCount, replayed.originalFrameCount);
+        float[][] capturedMfcc = captured.paddedMfcc();
+        float[][] replayedMfcc = replayed.paddedMfcc();
+        for (int i = 0; i < capturedMfcc.length; i++) {
+            assertArrayEquals(capturedMfcc[i], replayedMfcc[i], 0f);
+        }
+    }
+
+    private static SessionArchive.Record record(long timestamp, int n) {
+        float[][] mfcc = new float[CustomMFCC.TARGET_NUM_FRAMES][CustomMFCC.NUM_MFCC];
+        mfcc[3][2] = 1.5f;
+        return new SessionArchive.Record(timestamp, voiced(4000 + n), 1f, mfcc, 50,
+                n, "label_" + n, 0.5f, 3f, 12f, 20f);
+    }
+
+    // 150 Hz harmonics, loud enough to use most of the 16-bit range
+    private static short[] voiced(int length) {
+        short[] pcm = new short[length];
+        for (int i = 0; i < length; i++) {
+            double t = (double) i / SAMPLE_RATE;
+            pcm[i] = (short) (6000 * Math.sin(2 * Math.PI * 150 * t)
+                    + 3000 * Math.sin(2 * Math.PI * 450 * t)
+                    + 1500 * Math.sin(2 * Math.PI * 750 * t));
+        }
+        return pcm;
+    }
+}
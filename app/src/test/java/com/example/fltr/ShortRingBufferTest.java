@@ -0,0 +1,70 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Single-producer/single-consumer behaviour of the capture ring.
+ */
+public class ShortRingBufferTest {
+
+    @Test
+    public void read_wrapsAroundAndKeepsOrder() {
+        ShortRingBuffer ring = new ShortRingBuffer(8);
+        short[] out = new short[8];
+
+        assertEquals(6, ring.write(new short[]{1, 2, 3, 4, 5, 6}, 0, 6));
+        assertEquals(4, ring.read(out, 0, 4));
+        assertEquals(6, ring.write(new short[]{7, 8, 9, 10, 11, 12}, 0, 6));
+        assertEquals(8, ring.available());
+
+        assertEquals(8, ring.read(out, 0, 8));
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i + 5, out[i]);
+        }
+    }
+
+    @Test
+    public void write_dropsAndCountsOverrun() {
+        ShortRingBuffer ring = new ShortRingBuffer(4);
+        assertEquals(4, ring.write(new short[6], 0, 6));
+        assertEquals(2, ring.getDroppedSamples());
+    }
+
+    @Test
+    public void blockingRead_receivesEverySampleFromProducerThread() throws InterruptedException {
+        ShortRingBuffer ring = new ShortRingBuffer(1024);
+        int total = 200_000;
+
+        Thread producer = new Thread(() -> {
+            short[] chunk = new short[100];
+            short next = 0;
+            for (int written = 0; written < total; ) {
+                int n = Math.min(chunk.length, total - written);
+                for (int i = 0; i < n; i++) chunk[i] = next++;
+                while (ring.capacity() - ring.available() < n) Thread.yield();
+                assertEquals(n, ring.write(chunk, 0, n));
+                written += n;
+            }
+            ring.close();
+        });
+        producer.start();
+
+        short[] out = new short[256];
+        short expected = 0;
+        int received = 0;
+        while (true) {
+            int read = ring.read(out, 0, out.length, 1_000_000_000L);
+            for (int i = 0; i < read; i++) {
+                assertEquals(expected++, out[i]);
+            }
+            received += read;
+            if (read < out.length && ring.isClosed() && ring.available() == 0) break;
+        }
+        producer.join();
+
+        assertEquals(total, received);
+        assertEquals(0, ring.getDroppedSamples());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the partial selection against a full sort of the same scores.
+ */
+public class TopKTest {
+
+    @Test
+    public void select_matchesFullSort() {
+        Random random = new Random(7);
+        int[] indices = new int[5];
+        float[] scores = new float[5];
+
+        for (int trial = 0; trial < 50; trial++) {
+            float[] output = new float[300];
+            for (int i = 0; i < output.length; i++) {
+                output[i] = random.nextFloat();
+            }
+
+            Integer[] sorted = new Integer[output.length];
+            for (int i = 0; i < sorted.length; i++) sorted[i] = i;
+            Arrays.sort(sorted, Comparator.comparing((Integer i) -> -output[i]));
+
+            assertEquals(5, TopK.select(output, output.length, 5, indices, scores));
+            for (int i = 0; i < 5; i++) {
+                assertEquals((int) sorted[i], indices[i]);
+                assertEquals(output[sorted[i]], scores[i], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void select_keepsLowerIndexOnTiesAndClampsK() {
+        float[] output = {0.2f, 0.5f, 0.5f, 0.1f};
+        int[] indices = new int[8];
+        float[] scores = new float[8];
+
+        assertEquals(4, TopK.select(output, output.length, 8, indices, scores));
+        assertArrayEquals(new int[]{1, 2, 0, 3}, Arrays.copyOf(indices, 4));
+        assertEquals(0, TopK.select(output, output.length, 0, indices, scores));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Trigger and release behaviour of the VAD on synthetic chunks.
+ */
+public class VoiceActivityDetectorTest {
+    private static final int FRAME = 1024;
+    private static final int SAMPLE_RATE = 44100;
+    private static final int HANGOVER = 5;
+
+    @Test
+    public void voicedChunks_triggerAfterAttackAndReleasesAfterHangover() {
+        VoiceActivityDetector vad = detector();
+        short[] voiced = voiced(8000);
+        short[] silence = new short[FRAME];
+
+        assertFalse(vad.process(voiced, FRAME));
+        assertTrue(vad.process(voiced, FRAME));
+
+        // Hangover keeps it active through HANGOVER silent chunks
+        for (int i = 0; i < HANGOVER; i++) {
+            assertTrue(vad.process(silence, FRAME));
+        }
+        assertFalse(vad.process(silence, FRAME));
+    }
+
+    @Test
+    public void singleClick_doesNotTrigger() {
+        VoiceActivityDetector vad = detector();
+        short[] click = new short[FRAME];
+        for (int i = 0; i < 8; i++) click[500 + i] = (short) ((i % 2 == 0) ? 32000 : -32000);
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(vad.process(click, FRAME));
+        }
+    }
+
+    @Test
+    public void loudHiss_doesNotTrigger() {
+        VoiceActivityDetector vad = detector();
+        Random random = new Random(3);
+        short[] hiss = new short[FRAME];
+
+        for (int n = 0; n < 20; n++) {
+            // Alternating-sign noise: high zero-crossing rate, energy mostly above the speech band
+            for (int i = 0; i < FRAME; i++) {
+                hiss[i] = (short) (((i % 2 == 0) ? 1 : -1) * (4000 + random.nextInt(4000)));
+            }
+            assertFalse(vad.process(hiss, FRAME));
+        }
+    }
+
+    @Test
+    public void hysteresis_keepsQuieterTailActive() {
+        VoiceActivityDetector vad = detector();
+        vad.process(voiced(8000), FRAME);
+        vad.process(voiced(8000), FRAME);
+
+        // RMS ~750: below the trigger threshold but above the release threshold
+        short[] tail = voiced(2300);
+        for (int i = 0; i < 3 * HANGOVER; i++) {
+            assertTrue(vad.process(tail, FRAME));
+            assertTrue(vad.wasSpeechFrame());
+        }
+    }
+
+    private static VoiceActivityDetector detector() {
+        VoiceActivityDetector vad = new VoiceActivityDetector(FRAME, SAMPLE_RATE, HANGOVER);
+        vad.setEnergyThreshold(1000f);
+        return vad;
+    }
+
+    // Vowel-like: 150 Hz harmonics shaped by a formant around 700 Hz, scaled to the given peak
+    private static short[] voiced(double peak) {
+        double[] signal = new double[FRAME];
+        double max = 0;
+        for (int i = 0; i < FRAME; i++) {
+            for (int k = 1; k <= 20; k++) {
+                double f = 150.0 * k;
+                double gain = Math.exp(-Math.pow((f - 700) / 400, 2));
+                signal[i] += gain * Math.sin(2 * Math.PI * f * i / SAMPLE_RATE);
+            }
+            max = Math.max(max, Math.abs(signal[i]));
+        }
+
+        short[] chunk = new short[FRAME];
+        for (int i = 0; i < FRAME; i++) {
+            chunk[i] = (short) (peak * signal[i] / max);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.fltr;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Streams PCM through WavWriter in several pieces and reads it back with WavReader.
+ */
+public class WavWriterTest {
+    private static final int SAMPLE_RATE = 44100;
+
+    @Test
+    public void streamedSamples_roundTripAndSizesArePatched() throws Exception {
+        // Longer than one chunk and not a multiple of it
+        short[] samples = new short[WavWriter.CHUNK_BYTES + 1234];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (i * 37 - 20000);
+        }
+
+        File file = Files.createTempFile("writer", ".wav").toFile();
+        try (WavWriter writer = new WavWriter(new FileOutputStream(file).getChannel(), SAMPLE_RATE)) {
+            // As a capture loop would: short appends, then raw bytes
+            writer.write(samples, 0, 1000);
+            writer.write(samples, 1000, samples.length - 2000);
+            byte[] tail = new byte[2000];
+            for (int i = 0; i < 1000; i++) {
+                short s = samples[samples.length - 1000 + i];
+                tail[i * 2] = (byte) (s & 0xFF);
+                tail[i * 2 + 1] = (byte) ((s >> 8) & 0xFF);
+            }
+            writer.write(tail, 0, tail.length);
+            assertEquals(samples.length * 2L, writer.getDataBytes());
+        }
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        assertEquals(WavWriter.HEADER_SIZE + samples.length * 2, bytes.length);
+        assertArrayEquals(WavWriter.header(SAMPLE_RATE, 1, 16, samples.length * 2),
+                Arrays.copyOf(bytes, WavWriter.HEADER_SIZE));
+
+        WavReader.WavData data = WavReader.read(file);
+        assertEquals(SAMPLE_RATE, data.sampleRate);
+        assertArrayEquals(samples, data.samples);
+    }
+
+    @Test
+    public void header_matchesCanonicalLayout() {
+        byte[] header = WavWriter.header(SAMPLE_RATE, 1, 16, 100);
+        assertEquals(WavWriter.HEADER_SIZE, header.length);
+        assertEquals("RIFF", new String(header, 0, 4));
+        assertEquals("WAVEfmt ", new String(header, 8, 8));
+        assertEquals("data", new String(header, 36, 4));
+        assertEquals(136, (header[4] & 0xFF) | (header[5] & 0xFF) << 8);
+        assertEquals(100, header[40]);
+        assertEquals(2, header[32]); // block align
+    }
+}